@@ -2,8 +2,15 @@ package com.jefferson.mvc_object_mapper;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+//Cache advice wraps the transactional one, so @CacheEvict runs after the commit
+//and readers that miss afterwards already see the new state
 @SpringBootApplication
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableScheduling
 public class MvcObjectMapperApplication {
 
 	public static void main(String[] args) {
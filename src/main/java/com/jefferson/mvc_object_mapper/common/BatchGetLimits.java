@@ -0,0 +1,11 @@
+package com.jefferson.mvc_object_mapper.common;
+
+//Batch GET by ids: bounded IN lists keep the statement and its plan cache entry small
+public final class BatchGetLimits {
+
+    public static final int CHUNK_SIZE = 100;
+    public static final int MAX_IDS = 1000;
+
+    private BatchGetLimits() {
+    }
+}
@@ -0,0 +1,7 @@
+package com.jefferson.mvc_object_mapper.common;
+
+public enum BatchItemStatus {
+    CREATED,
+    INVALID,
+    FAILED
+}
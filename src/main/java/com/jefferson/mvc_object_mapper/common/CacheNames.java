@@ -0,0 +1,11 @@
+package com.jefferson.mvc_object_mapper.common;
+
+//Spring caches of serialized UTF-8 response bodies, size and TTL are set by spring.cache.caffeine.spec
+public final class CacheNames {
+
+    public static final String PRODUCT_JSON = "productJson";
+    public static final String CUSTOMER_JSON = "customerJson";
+
+    private CacheNames() {
+    }
+}
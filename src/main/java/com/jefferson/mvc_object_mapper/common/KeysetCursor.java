@@ -0,0 +1,31 @@
+package com.jefferson.mvc_object_mapper.common;
+
+import com.jefferson.mvc_object_mapper.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//Opaque position for seek paging: last seen (sortKey value, id) pair
+public record KeysetCursor(String sortKey, String sortValue, Long id) {
+
+    private static final String SEPARATOR = "\n";
+
+    public String encode() {
+        String raw = id + SEPARATOR + sortKey + SEPARATOR + (sortValue == null ? "" : sortValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            //sort value goes last, it may contain the separator itself
+            String[] parts = raw.split(SEPARATOR, 3);
+            if(parts.length != 3 || parts[1].isEmpty()) {
+                throw new InvalidCursorException("Invalid cursor: " + token);
+            }
+            return new KeysetCursor(parts[1], parts[2], Long.valueOf(parts[0]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+}
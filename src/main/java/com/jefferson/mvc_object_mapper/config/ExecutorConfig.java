@@ -0,0 +1,40 @@
+package com.jefferson.mvc_object_mapper.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    //Read-only lookups forked while an order is placed. Keep it below the connection pool size, each
+    //running lookup holds a connection. The queue is unbounded, the capped Tomcat pool of platform
+    //request threads bounds how many lookups can wait in it
+    @Bean(name = "orderLookupExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor platformOrderLookupExecutor(@Value("${order.lookup.threads:8}") int threads) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("order-lookup-");
+        executor.initialize();
+        return executor;
+    }
+
+    //Virtual request threads are not capped, so nothing would bound a queue. A virtual thread per lookup
+    //instead, at most order.lookup.threads of them at once: callers past the limit wait in execute
+    @Bean(name = "orderLookupExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualOrderLookupExecutor(@Value("${order.lookup.threads:8}") int threads) {
+
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-lookup-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(threads);
+        return executor;
+    }
+}
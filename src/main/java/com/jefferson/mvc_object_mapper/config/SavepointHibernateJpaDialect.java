@@ -0,0 +1,67 @@
+package com.jefferson.mvc_object_mapper.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+//HibernateJpaDialect whose transaction data is a SavepointManager, JpaTransactionManager only runs
+//PROPAGATION_NESTED when it is. Savepoints are set on the session's JDBC connection; rolling back to
+//one doesn't touch the persistence context, so entities persisted after it must not be flushed
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return new SavepointTransactionData(entityManager.unwrap(Session.class), transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+
+        if(transactionData instanceof SavepointTransactionData savepointData) {
+            transactionData = savepointData.delegate();
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private record SavepointTransactionData(Session session, Object delegate) implements SavepointManager {
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            try {
+                return session.doReturningWork(Connection::setSavepoint);
+            } catch (PersistenceException e) {
+                throw new TransactionSystemException("Could not create JDBC savepoint", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            try {
+                session.doWork(connection -> connection.rollback((Savepoint) savepoint));
+            } catch (PersistenceException e) {
+                throw new TransactionSystemException("Could not roll back to JDBC savepoint", e);
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            try {
+                session.doWork(connection -> connection.releaseSavepoint((Savepoint) savepoint));
+            } catch (PersistenceException e) {
+                throw new TransactionSystemException("Could not release JDBC savepoint", e);
+            }
+        }
+    }
+}
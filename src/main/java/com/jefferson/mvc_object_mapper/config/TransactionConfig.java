@@ -0,0 +1,26 @@
+package com.jefferson.mvc_object_mapper.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+@Configuration
+public class TransactionConfig {
+
+    //Boot's JpaTransactionManager takes its dialect from the entity manager factory while it is
+    //initialized, so the savepoint dialect is swapped in afterwards. Enables PROPAGATION_NESTED
+    @Bean
+    public static BeanPostProcessor nestedJpaTransactions() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if(bean instanceof JpaTransactionManager transactionManager) {
+                    transactionManager.setJpaDialect(new SavepointHibernateJpaDialect());
+                    transactionManager.setNestedTransactionAllowed(true);
+                }
+                return bean;
+            }
+        };
+    }
+}
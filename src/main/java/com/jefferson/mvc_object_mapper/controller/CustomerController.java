@@ -1,56 +1,85 @@
 package com.jefferson.mvc_object_mapper.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.mvc_object_mapper.common.CacheNames;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.CustomerDto;
 import com.jefferson.mvc_object_mapper.dto.CustomerRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
 import com.jefferson.mvc_object_mapper.service.CustomerService;
+import com.jefferson.mvc_object_mapper.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
 
 @Controller
 @RequestMapping(path = "/api/v1/customer", produces = MediaType.APPLICATION_JSON_VALUE)
 public class CustomerController {
 
     private final CustomerService customerService;
-    private final ObjectMapper objectMapper;
+    private final OrderService orderService;
+    private final JsonCodecs jsonCodecs;
+    private final JsonRequestReader jsonRequestReader;
+    private final JsonResponseWriter jsonResponseWriter;
+    private final JsonResponseCache jsonResponseCache;
 
     @Autowired
     public CustomerController(CustomerService customerService,
-                              ObjectMapper objectMapper) {
+                              OrderService orderService,
+                              JsonCodecs jsonCodecs,
+                              JsonRequestReader jsonRequestReader,
+                              JsonResponseWriter jsonResponseWriter,
+                              JsonResponseCache jsonResponseCache) {
 
         this.customerService = customerService;
-        this.objectMapper =objectMapper;
+        this.orderService = orderService;
+        this.jsonCodecs = jsonCodecs;
+        this.jsonRequestReader = jsonRequestReader;
+        this.jsonResponseWriter = jsonResponseWriter;
+        this.jsonResponseCache = jsonResponseCache;
     }
 
     @GetMapping(path = "/{id}")
-    public ResponseEntity<String> getCustomer(@PathVariable Long id) {
-
-        CustomerDto customerDto = customerService.getCustomerById(id);
-        try {
-            String result = objectMapper.writeValueAsString(customerDto);
-            return ResponseEntity.ok(result);
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
+    public void getCustomer(@PathVariable Long id, ServletWebRequest webRequest,
+                           HttpServletResponse response) throws IOException {
+
+        Long version = customerService.getCustomerVersion(id);
+        if(webRequest.checkNotModified(String.valueOf(version))) {
+            return;
         }
+
+        byte[] body = jsonResponseCache.get(CacheNames.CUSTOMER_JSON, id, version, jsonCodecs.getCustomerDtoWriter(),
+                () -> customerService.getCustomerById(id));
+
+        jsonResponseWriter.write(response, HttpStatus.OK, body);
+    }
+
+    //Seek paging from the newest order, pass nextCursor of the previous response to continue
+    @GetMapping(path = "/{id}/orders")
+    public void getCustomerOrders(@PathVariable Long id,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "20") int size,
+                                  @RequestParam(defaultValue = "false") boolean items,
+                                  HttpServletResponse response) throws IOException {
+
+        CursorPage<OrderDto> orders = orderService.getCustomerOrders(id, cursor, size, items);
+
+        jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getOrderCursorPageWriter(), orders);
     }
 
     @PostMapping(path = "/new")
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<String> createCustomer(@RequestBody String request) {
-
-        try {
-            CustomerRequest customerRequest = objectMapper.readValue(request, CustomerRequest.class);
-            CustomerDto response = customerService.createNewCustomer(customerRequest);
-            String responseBody = objectMapper.writeValueAsString(response);
-            return ResponseEntity.status(HttpStatus.CREATED).body(responseBody);
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
-        }
+    public void createCustomer(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        CustomerRequest customerRequest = jsonRequestReader.read(request, jsonCodecs.getCustomerRequestReader());
+        CustomerDto customerDto = customerService.createNewCustomer(customerRequest);
+        jsonResponseWriter.write(response, HttpStatus.CREATED, jsonCodecs.getCustomerDtoWriter(), customerDto);
     }
 
     @DeleteMapping("/{id}")
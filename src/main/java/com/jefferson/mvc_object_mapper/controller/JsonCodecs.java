@@ -0,0 +1,55 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jefferson.mvc_object_mapper.dto.*;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//Readers and writers are immutable and thread-safe, root type lookup is paid once here
+//instead of on every readValue/writeValue call through the shared ObjectMapper
+@Component
+@Getter
+public class JsonCodecs {
+
+    private final ObjectReader productRequestReader;
+    private final ObjectReader orderRequestReader;
+    private final ObjectReader customerRequestReader;
+    private final ObjectReader idListReader;
+
+    private final ObjectWriter productDtoWriter;
+    private final ObjectWriter productPageWriter;
+    private final ObjectWriter productSliceWriter;
+    private final ObjectWriter productCursorPageWriter;
+    private final ObjectWriter orderDtoWriter;
+    private final ObjectWriter orderCursorPageWriter;
+    private final ObjectWriter orderIntakeDtoWriter;
+    private final ObjectWriter customerDtoWriter;
+    private final ObjectWriter batchResultWriter;
+
+    @Autowired
+    public JsonCodecs(ObjectMapper objectMapper) {
+
+        this.productRequestReader = objectMapper.readerFor(ProductRequest.class);
+        this.orderRequestReader = objectMapper.readerFor(OrderRequest.class);
+        this.customerRequestReader = objectMapper.readerFor(CustomerRequest.class);
+        this.idListReader = objectMapper.readerFor(new TypeReference<List<Long>>() {});
+
+        this.productDtoWriter = objectMapper.writerFor(ProductDto.class);
+        this.productPageWriter = objectMapper.writerFor(new TypeReference<Page<ProductDto>>() {});
+        this.productSliceWriter = objectMapper.writerFor(new TypeReference<Slice<ProductDto>>() {});
+        this.productCursorPageWriter = objectMapper.writerFor(new TypeReference<CursorPage<ProductDto>>() {});
+        this.orderDtoWriter = objectMapper.writerFor(OrderDto.class);
+        this.orderCursorPageWriter = objectMapper.writerFor(new TypeReference<CursorPage<OrderDto>>() {});
+        this.orderIntakeDtoWriter = objectMapper.writerFor(OrderIntakeDto.class);
+        this.customerDtoWriter = objectMapper.writerFor(CustomerDto.class);
+        this.batchResultWriter = objectMapper.writerFor(BatchResult.class);
+    }
+}
@@ -0,0 +1,34 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Component
+public class JsonRequestReader {
+
+    //Feeds Jackson from the raw request bytes, the body is never materialized as a String
+    public <T> T read(HttpServletRequest request, ObjectReader reader) throws IOException {
+
+        try (JsonParser parser = reader.createParser(request.getInputStream())) {
+            //same mapping as a missing @RequestBody
+            if(parser.nextToken() == null) {
+                throw new HttpMessageNotReadableException("Required request body is missing",
+                        new ServletServerHttpRequest(request));
+            }
+            return reader.readValue(parser);
+        }
+    }
+
+    //Lazy reading of a JSON array or of newline-delimited values, one element is bound per next() call
+    public <T> MappingIterator<T> readValues(HttpServletRequest request, ObjectReader reader) throws IOException {
+
+        return reader.readValues(request.getInputStream());
+    }
+}
@@ -0,0 +1,44 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+@Component
+public class JsonResponseCache {
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public JsonResponseCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    //A hit skips the service, mapping and serialization. An entry of another version counts as a miss:
+    //the body is serialized once and replaces it. Loader exceptions (not found, validation)
+    //pass through untouched and nothing is cached
+    public byte[] get(String cacheName, Object key, Object version, ObjectWriter writer, Supplier<?> loader)
+            throws JsonProcessingException {
+
+        Cache cache = cacheManager.getCache(cacheName);
+        VersionedBody cached = cache == null ? null : cache.get(key, VersionedBody.class);
+
+        if(cached != null && cached.version().equals(version)) {
+            return cached.body();
+        }
+
+        byte[] body = writer.writeValueAsBytes(loader.get());
+        if(cache != null) {
+            cache.put(key, new VersionedBody(version, body));
+        }
+        return body;
+    }
+
+    private record VersionedBody(Object version, byte[] body) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Component
+public class JsonResponseWriter {
+
+    //Serializes body straight into the servlet output stream, no intermediate String or byte[]
+    public void write(HttpServletResponse response, HttpStatus status,
+                      ObjectWriter writer, Object body) throws IOException {
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = writer
+                .createGenerator(StreamUtils.nonClosing(response.getOutputStream()), JsonEncoding.UTF8)) {
+            writer.writeValue(generator, body);
+        } catch (JsonProcessingException e) {
+            //drop partial output so GlobalExceptionHandler can write the error body,
+            //if the buffer was already flushed to the client nothing can be replaced
+            if(!response.isCommitted()) {
+                response.resetBuffer();
+            }
+            throw e;
+        }
+    }
+
+    //Streams a JSON array chunk by chunk, only the chunk being written is held in memory as long as
+    //the source lets go of what it loaded for earlier chunks (clears the persistence context).
+    //Failures before the first buffer flush still reach GlobalExceptionHandler
+    public <T> void writeArray(HttpServletResponse response, HttpStatus status,
+                               ObjectWriter elementWriter, ChunkSource<T> source) throws IOException {
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = elementWriter
+                .createGenerator(StreamUtils.nonClosing(response.getOutputStream()), JsonEncoding.UTF8)) {
+            //the servlet buffer decides when bytes go out, not every element
+            SequenceWriter sequenceWriter = elementWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .writeValuesAsArray(generator);
+            source.forEachChunk(chunk -> {
+                try {
+                    sequenceWriter.writeAll(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            //closes the array and flushes, skipped on failure so the buffer can still be reset
+            sequenceWriter.close();
+        } catch (IOException | RuntimeException e) {
+            if(!response.isCommitted()) {
+                response.resetBuffer();
+            }
+            if(e instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw e;
+        }
+    }
+
+    //Body is already serialized UTF-8 JSON, e.g. taken from JsonResponseCache
+    public void write(HttpServletResponse response, HttpStatus status, byte[] body) throws IOException {
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+
+        response.getOutputStream().write(body);
+    }
+
+    @FunctionalInterface
+    public interface ChunkSource<T> {
+        void forEachChunk(Consumer<List<T>> sink);
+    }
+}
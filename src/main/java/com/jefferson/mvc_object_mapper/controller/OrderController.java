@@ -1,61 +1,120 @@
 package com.jefferson.mvc_object_mapper.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
 import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderIntakeDto;
 import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.exception.OrderNotFoundException;
+import com.jefferson.mvc_object_mapper.service.OrderBatchService;
+import com.jefferson.mvc_object_mapper.service.OrderIntake;
 import com.jefferson.mvc_object_mapper.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/api/v1/order", produces = MediaType.APPLICATION_JSON_VALUE)
 public class OrderController {
 
     private final OrderService orderService;
-    private final ObjectMapper objectMapper;
+    private final OrderBatchService orderBatchService;
+    private final JsonCodecs jsonCodecs;
+    private final JsonRequestReader jsonRequestReader;
+    private final JsonResponseWriter jsonResponseWriter;
+    //null unless order.async-intake.enabled
+    private final OrderIntake orderIntake;
 
     @Autowired
-    public OrderController(OrderService orderService, ObjectMapper objectMapper) {
+    public OrderController(OrderService orderService, OrderBatchService orderBatchService, JsonCodecs jsonCodecs,
+                           JsonRequestReader jsonRequestReader,
+                           JsonResponseWriter jsonResponseWriter,
+                           ObjectProvider<OrderIntake> orderIntake) {
         this.orderService = orderService;
-        this. objectMapper = objectMapper;
+        this.orderBatchService = orderBatchService;
+        this.jsonCodecs = jsonCodecs;
+        this.jsonRequestReader = jsonRequestReader;
+        this.jsonResponseWriter = jsonResponseWriter;
+        this.orderIntake = orderIntake.getIfAvailable();
     }
 
     @GetMapping(path = "/{id}")
-    public ResponseEntity<String> getOrder(@PathVariable Long id) {
+    public void getOrder(@PathVariable Long id, ServletWebRequest webRequest,
+                         HttpServletResponse response) throws IOException {
+
+        //a matching If-None-Match is answered with 304 before the order graph is loaded
+        if(webRequest.checkNotModified(orderService.getOrderVersionTag(id))) {
+            return;
+        }
 
         OrderDto orderDto = orderService.getOrderById(id);
 
-        try {
-            String responseBody = objectMapper.writeValueAsString(orderDto);
-            return ResponseEntity.ok().body(responseBody);
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
-        }
+        jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getOrderDtoWriter(), orderDto);
+    }
+
+    //Body is a JSON array of order ids, missing and deleted orders are left out of the response array
+    @PostMapping(path = "/batch-get")
+    public void batchGetOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        List<Long> orderIds = jsonRequestReader.read(request, jsonCodecs.getIdListReader());
+
+        jsonResponseWriter.<OrderDto>writeArray(response, HttpStatus.OK, jsonCodecs.getOrderDtoWriter(),
+                sink -> orderService.forEachOrderChunk(orderIds, sink));
     }
 
     @PostMapping(path = "/new")
-    public ResponseEntity<String> newOrder(@RequestBody String request) {
+    public void newOrder(HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-        try {
-            OrderRequest orderRequest = objectMapper.readValue(request, OrderRequest.class);
+        OrderRequest orderRequest = jsonRequestReader.read(request, jsonCodecs.getOrderRequestReader());
 
-            OrderDto orderDto = orderService.createNewOrder(orderRequest);
+        //async intake answers 202 with a token once the order is queued, its status is polled below
+        if(orderIntake != null) {
+            OrderIntakeDto intakeDto = orderIntake.submit(orderRequest);
+            response.setHeader(HttpHeaders.LOCATION, "/api/v1/order/intake/" + intakeDto.token());
+            jsonResponseWriter.write(response, HttpStatus.ACCEPTED, jsonCodecs.getOrderIntakeDtoWriter(), intakeDto);
+            return;
+        }
 
-            String responseBody = objectMapper.writeValueAsString(orderDto);
+        OrderDto orderDto = orderService.createNewOrder(orderRequest);
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(responseBody);
+        jsonResponseWriter.write(response, HttpStatus.CREATED, jsonCodecs.getOrderDtoWriter(), orderDto);
+    }
 
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
+    //Accepts a JSON array or an NDJSON stream, every order gets its own outcome in the response
+    @PostMapping(path = "/batch")
+    public void newOrdersBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        try(MappingIterator<OrderRequest> requests =
+                    jsonRequestReader.readValues(request, jsonCodecs.getOrderRequestReader())) {
+
+            BatchResult batchResult = orderBatchService.createOrders(requests);
+
+            jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getBatchResultWriter(), batchResult);
         }
     }
 
+    @GetMapping(path = "/intake/{token}")
+    public void getOrderIntake(@PathVariable String token, HttpServletResponse response) throws IOException {
+
+        if(orderIntake == null) {
+            throw new OrderNotFoundException("Order not found for token: " + token);
+        }
+
+        OrderIntakeDto intakeDto = orderIntake.getStatus(token);
+
+        jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getOrderIntakeDtoWriter(), intakeDto);
+    }
+
     @DeleteMapping(path = "/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteOrder(@PathVariable Long id) {
@@ -1,101 +1,146 @@
 package com.jefferson.mvc_object_mapper.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.jefferson.mvc_object_mapper.common.CacheNames;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.service.ProductBatchService;
 import com.jefferson.mvc_object_mapper.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/api/v1/product", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ProductController {
 
     private final ProductService productService;
-    private final ObjectMapper objectMapper;
+    private final ProductBatchService productBatchService;
+    private final JsonCodecs jsonCodecs;
+    private final JsonRequestReader jsonRequestReader;
+    private final JsonResponseWriter jsonResponseWriter;
+    private final JsonResponseCache jsonResponseCache;
 
     @Autowired
-    public ProductController(ProductService productService, ObjectMapper objectMapper) {
+    public ProductController(ProductService productService, ProductBatchService productBatchService,
+                             JsonCodecs jsonCodecs,
+                             JsonRequestReader jsonRequestReader,
+                             JsonResponseWriter jsonResponseWriter,
+                             JsonResponseCache jsonResponseCache) {
         this.productService = productService;
-        this.objectMapper =objectMapper;
+        this.productBatchService = productBatchService;
+        this.jsonCodecs = jsonCodecs;
+        this.jsonRequestReader = jsonRequestReader;
+        this.jsonResponseWriter = jsonResponseWriter;
+        this.jsonResponseCache = jsonResponseCache;
     }
 
+    //count=false returns a Slice: only "has next" is known, the total count query is skipped
     @GetMapping(path = "/all")
-    public ResponseEntity<String> productsPage(@RequestParam(defaultValue = "0") int page,
-                                               @RequestParam(defaultValue = "10") int size,
-                                               @RequestParam(defaultValue = "id") String sort) {
+    public void productsPage(@RequestParam(defaultValue = "0") int page,
+                             @RequestParam(defaultValue = "10") int size,
+                             @RequestParam(defaultValue = "id") String sort,
+                             @RequestParam(defaultValue = "true") boolean count,
+                             HttpServletResponse response) throws IOException {
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
+
+        if(!count) {
+            Slice<ProductDto> products = productService.getProductsSlice(pageable);
+            jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getProductSliceWriter(), products);
+            return;
+        }
 
-        try {
-            Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
+        Page<ProductDto> products = productService.getAllProducts(pageable);
 
-            Page<ProductDto> products = productService.getAllProducts(pageable);
+        jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getProductPageWriter(), products);
+    }
 
-            String responseBody = objectMapper.writeValueAsString(products);
+    //Seek paging, pass nextCursor of the previous response to continue
+    @GetMapping
+    public void productsAfter(@RequestParam(required = false) String cursor,
+                              @RequestParam(defaultValue = "10") int size,
+                              @RequestParam(defaultValue = "id") String sort,
+                              HttpServletResponse response) throws IOException {
 
-            return ResponseEntity.ok(responseBody);
+        CursorPage<ProductDto> products = productService.getProductsAfter(cursor, size, sort);
 
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
-        }
+        jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getProductCursorPageWriter(), products);
     }
 
     @GetMapping(path = "/{id}")
-    public ResponseEntity<String> getProduct(@PathVariable Long id) {
+    public void getProduct(@PathVariable Long id, ServletWebRequest webRequest,
+                           HttpServletResponse response) throws IOException {
 
-        ProductDto productDto = productService.getProductById(id);
-
-        try {
-            String responseBody = objectMapper.writeValueAsString(productDto);
+        Long version = productService.getProductVersion(id);
+        if(webRequest.checkNotModified(String.valueOf(version))) {
+            return;
+        }
 
-            return ResponseEntity.ok(responseBody);
+        byte[] body = jsonResponseCache.get(CacheNames.PRODUCT_JSON, id, version, jsonCodecs.getProductDtoWriter(),
+                () -> productService.getProductById(id));
 
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
-        }
+        jsonResponseWriter.write(response, HttpStatus.OK, body);
     }
 
     @PostMapping(path = "/new")
-    public ResponseEntity<String> newProduct(@RequestBody String productRequest) {
+    public void newProduct(HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-        try {
-            ProductRequest mappedRequest = objectMapper.readValue(productRequest, ProductRequest.class);
+        ProductRequest mappedRequest = jsonRequestReader.read(request, jsonCodecs.getProductRequestReader());
 
-            ProductDto productDto = productService.createNewProduct(mappedRequest);
+        ProductDto productDto = productService.createNewProduct(mappedRequest);
 
-            String responseBody = objectMapper.writeValueAsString(productDto);
+        jsonResponseWriter.write(response, HttpStatus.CREATED, jsonCodecs.getProductDtoWriter(), productDto);
+    }
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(responseBody);
+    //Accepts a JSON array or an NDJSON stream, the body is consumed while chunks are persisted
+    @PostMapping(path = "/batch")
+    public void newProductsBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
+        try(MappingIterator<ProductRequest> requests =
+                    jsonRequestReader.readValues(request, jsonCodecs.getProductRequestReader())) {
+
+            BatchResult batchResult = productBatchService.createProducts(requests);
+
+            jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getBatchResultWriter(), batchResult);
         }
     }
 
-    @PutMapping(path = "/{id}")
-    public ResponseEntity<String> updateProduct(@PathVariable Long id,
-                                                @RequestBody String updateRequest) {
+    //Body is a JSON array of product ids, missing and deleted products are left out of the response array
+    @PostMapping(path = "/batch-get")
+    public void batchGetProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-        try {
-            ProductRequest mappedRequest = objectMapper.readValue(updateRequest, ProductRequest.class);
+        List<Long> productIds = jsonRequestReader.read(request, jsonCodecs.getIdListReader());
 
-            ProductDto productDto = productService.updateProductInfo(id, mappedRequest);
+        jsonResponseWriter.<ProductDto>writeArray(response, HttpStatus.OK, jsonCodecs.getProductDtoWriter(),
+                sink -> productService.forEachProductChunk(productIds, sink));
+    }
 
-            String responseBody = objectMapper.writeValueAsString(productDto);
+    @PutMapping(path = "/{id}")
+    public void updateProduct(@PathVariable Long id,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
 
-            return ResponseEntity.ok(responseBody);
+        ProductRequest mappedRequest = jsonRequestReader.read(request, jsonCodecs.getProductRequestReader());
 
-        } catch (JsonProcessingException e) {
-            return ResponseEntity.internalServerError().body("Error processing request");
-        }
+        ProductDto productDto = productService.updateProductInfo(id, mappedRequest);
+
+        jsonResponseWriter.write(response, HttpStatus.OK, jsonCodecs.getProductDtoWriter(), productDto);
     }
 
     @DeleteMapping(path = "/{id}")
@@ -0,0 +1,9 @@
+package com.jefferson.mvc_object_mapper.dto;
+
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+
+import java.util.List;
+
+//index is the position of the item in the request body, id is null unless the item was created
+public record BatchItemResult(int index, BatchItemStatus status, Long id, List<String> errors) {
+}
@@ -0,0 +1,6 @@
+package com.jefferson.mvc_object_mapper.dto;
+
+import java.util.List;
+
+public record BatchResult(int created, int rejected, List<BatchItemResult> items) {
+}
@@ -0,0 +1,7 @@
+package com.jefferson.mvc_object_mapper.dto;
+
+import java.util.List;
+
+//nextCursor is null on the last page
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext) {
+}
@@ -20,8 +20,8 @@ public record OrderDto(
         @Positive(message = "Order dto: customer id must be positive")
         Long customerId,
 
-        @NotNull(message = "Order dto: products mustn't be null")
-        List<ProductDto> products,
+        @NotNull(message = "Order dto: items mustn't be null")
+        List<OrderItemDto> items,
 
         @NotNull(message = "Order dto: products mustn't be null")
         LocalDateTime orderDate,
@@ -45,7 +45,7 @@ public record OrderDto(
         OrderDto other = (OrderDto) obj;
         return Objects.equals(id, other.id)
                 && Objects.equals(customerId, other.customerId)
-                && Objects.equals(products, other.products)
+                && Objects.equals(items, other.items)
                 && Objects.equals(shippingAddress, other.shippingAddress)
                 && Objects.equals(totalPrice, other.totalPrice)
                 && Objects.equals(orderStatus, other.orderStatus);
@@ -53,6 +53,6 @@ public record OrderDto(
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, customerId, products, shippingAddress, totalPrice, orderStatus);
+        return Objects.hash(id, customerId, items, shippingAddress, totalPrice, orderStatus);
     }
 }
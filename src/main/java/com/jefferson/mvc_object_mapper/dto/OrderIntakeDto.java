@@ -0,0 +1,7 @@
+package com.jefferson.mvc_object_mapper.dto;
+
+import com.jefferson.mvc_object_mapper.common.OrderIntakeStatus;
+
+//orderId is set once the order is placed, error once it failed
+public record OrderIntakeDto(String token, OrderIntakeStatus status, Long orderId, String error) {
+}
@@ -0,0 +1,11 @@
+package com.jefferson.mvc_object_mapper.dto;
+
+import java.math.BigDecimal;
+
+public record OrderItemDto(
+        Long productId,
+        String name,
+        Long quantity,
+        BigDecimal unitPrice
+) {
+}
@@ -0,0 +1,16 @@
+package com.jefferson.mvc_object_mapper.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record OrderItemRequest(
+
+        @NotNull(message = "Order item: product id mustn't be null")
+        @Positive(message = "Order item: product id must be positive")
+        Long productId,
+
+        @NotNull(message = "Order item: quantity mustn't be null")
+        @Positive(message = "Order item: quantity must be positive")
+        Long quantity
+) {
+}
@@ -1,9 +1,11 @@
 package com.jefferson.mvc_object_mapper.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -14,10 +16,12 @@ public record OrderRequest(
         @Positive(message = "Order request: customer id must be positive")
         Long customerId,
 
-        @NotNull(message = "Order request: products mustn't be null")
-        List<ProductDto> products,
+        //repeated product ids are merged into one item
+        @NotNull(message = "Order request: items mustn't be null")
+        List<@Valid @NotNull(message = "Order request: item mustn't be null") OrderItemRequest> items,
 
         @NotBlank(message = "Order request: shipping address mustn't be empty")
+        @Size(max = 255, message = "Order request: shipping address is longer than 255 characters")
         String shippingAddress,
 
         @NotNull(message = "Order request: total price mustn't be null")
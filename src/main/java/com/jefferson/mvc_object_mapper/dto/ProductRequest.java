@@ -4,13 +4,16 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 
 public record ProductRequest(
          @NotBlank(message = "Product request: product name is null or empty")
+         @Size(max = 255, message = "Product request: product name is longer than 255 characters")
          String name,
 
+         @Size(max = 255, message = "Product request: description is longer than 255 characters")
          String description,
 
          @Positive(message = "Product request: price must be positive")
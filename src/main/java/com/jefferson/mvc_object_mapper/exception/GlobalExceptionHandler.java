@@ -1,12 +1,15 @@
 package com.jefferson.mvc_object_mapper.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.query.sqm.ParsingException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -87,6 +90,35 @@ public class GlobalExceptionHandler {
                 .body(Map.of("Error", exception.getMessage()));
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Map<String, String>> handleInsufficientStockException(InsufficientStockException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("Error", exception.getMessage()));
+    }
+
+    @ExceptionHandler(OrderTotalMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleOrderTotalMismatchException(OrderTotalMismatchException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("Error", exception.getMessage()));
+    }
+
+    @ExceptionHandler(OrderIntakeFullException.class)
+    public ResponseEntity<Map<String, String>> handleOrderIntakeFullException(OrderIntakeFullException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("Error", exception.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursorException(InvalidCursorException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("Error", exception.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<Map<String, String>> handleTypeMismatchException(MethodArgumentTypeMismatchException exception) {
         log.error(exception.getMessage());
@@ -101,6 +133,14 @@ public class GlobalExceptionHandler {
                 .body(Map.of("Error", "Unique index or primary key violation."));
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(
+            ObjectOptimisticLockingFailureException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("Error", "Resource was modified concurrently, retry the request."));
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Map<String, String>> handleBadRequestBody(HttpMessageNotReadableException exception) {
         log.error(exception.getMessage());
@@ -109,6 +149,15 @@ public class GlobalExceptionHandler {
                 .body(Map.of("Error", "Request body is null or cannot be read."));
     }
 
+    //Manual ObjectMapper reading/writing in controllers
+    @ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<Map<String, String>> handleJsonProcessingException(JsonProcessingException exception) {
+        log.error(exception.getMessage());
+        return ResponseEntity
+                .internalServerError()
+                .body(Map.of("Error", "Error processing request"));
+    }
+
     @ExceptionHandler(ParsingException.class)
     public ResponseEntity<Map<String, String>> handleQueryParsingException(ParsingException exception) {
         log.error(exception.getMessage());
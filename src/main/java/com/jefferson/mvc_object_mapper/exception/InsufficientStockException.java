@@ -0,0 +1,7 @@
+package com.jefferson.mvc_object_mapper.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jefferson.mvc_object_mapper.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jefferson.mvc_object_mapper.exception;
+
+public class OrderIntakeFullException extends RuntimeException {
+    public OrderIntakeFullException(String message) {
+        super(message);
+    }
+}
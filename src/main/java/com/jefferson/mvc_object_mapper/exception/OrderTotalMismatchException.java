@@ -0,0 +1,7 @@
+package com.jefferson.mvc_object_mapper.exception;
+
+public class OrderTotalMismatchException extends RuntimeException {
+    public OrderTotalMismatchException(String message) {
+        super(message);
+    }
+}
@@ -1,22 +1,42 @@
 package com.jefferson.mvc_object_mapper.mapper;
 
 import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemDto;
 import com.jefferson.mvc_object_mapper.dto.OrderRequest;
 import com.jefferson.mvc_object_mapper.model.Order;
+import com.jefferson.mvc_object_mapper.model.OrderItem;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface OrderMapper {
 
-    @Mapping(target = "products", ignore = true)
+    @Mapping(target = "items", ignore = true)
     @Mapping(source = "customer.id", target = "customerId")
-    OrderDto toDtoWithoutProducts(Order order);
+    OrderDto toDtoWithoutItems(Order order);
 
     @Mapping(source = "customer.id", target = "customerId")
-    OrderDto toDtoWithProducts(Order order);
+    OrderDto toDtoWithItems(Order order);
 
     @Mapping(target = "customer", ignore = true)
-    @Mapping(target = "products", ignore = true)
+    @Mapping(target = "items", ignore = true)
+    @Mapping(target = "stockSettled", ignore = true)
     Order toEntity(OrderRequest orderRequest);
+
+    @Mapping(source = "product.id", target = "productId")
+    @Mapping(source = "product.name", target = "name")
+    OrderItemDto toItemDto(OrderItem orderItem);
+
+    //items of deleted products are kept in the db but not shown
+    default List<OrderItemDto> toItemDtos(List<OrderItem> orderItems) {
+        if(orderItems == null) {
+            return null;
+        }
+        return orderItems.stream()
+                .filter(orderItem -> !orderItem.getProduct().isDeleted())
+                .map(this::toItemDto)
+                .toList();
+    }
 }
@@ -9,16 +9,22 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 @Entity
-@Table(name = "customers")
+//H2 has no functional or partial indexes: case-insensitive lookups go through a lower-cased copy
+//of the email, the deleted flag is the trailing column
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_email_normalized_deleted", columnList = "email_normalized, deleted")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_seq")
+    @SequenceGenerator(name = "customers_seq", sequenceName = "customers_seq", allocationSize = 50)
     @Getter
     @Setter
     private Long id;
@@ -38,6 +44,9 @@ public class Customer {
     @Setter
     private String email;
 
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
     @Embedded
     @Getter
     @Setter
@@ -56,9 +65,23 @@ public class Customer {
     @Getter
     private LocalDateTime createdAt;
 
+    @Version
+    @Getter
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        emailNormalized = normalizeEmail(email);
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        emailNormalized = normalizeEmail(email);
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
     }
 
     public void addOrder(Order order) {
@@ -6,7 +6,6 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.hibernate.annotations.Where;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,37 +14,31 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "orders")
+//the ledger flush scans unsettled orders by id. Customer order history uses the index H2 creates
+//for the customer_id foreign key, its planner never picks a (customer_id, order_date, id) index
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_stock_settled_id", columnList = "stock_settled, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     @Getter
     @Setter
     private Long id;
 
-    @ManyToOne
+    //Required: derived queries on customer.id join it inner, through an outer join H2 scanned all orders
+    @ManyToOne(optional = false)
     @JoinColumn(name = "customer_id", nullable = false)
     @Getter
     @Setter
     private Customer customer;
 
-    @ManyToMany(
-            fetch = FetchType.LAZY
-    )
-    @JoinTable(
-            name = "order_products",
-            joinColumns = @JoinColumn(name = "order_id"),
-            inverseJoinColumns = @JoinColumn(name = "product_id"),
-            uniqueConstraints = @UniqueConstraint(
-                    columnNames = {"order_id", "product_id"},
-                    name = "uc_order_product_unique"
-            )
-    )
-    @Where(clause = "deleted = false")
-    private List<Product> products = new ArrayList<>();
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    private List<OrderItem> items = new ArrayList<>();
 
     @Column(name = "order_date", nullable = false, updatable = false)
     @Getter
@@ -67,22 +60,30 @@ public class Order {
     @Setter
     private OrderStatus orderStatus;
 
+    //false while the ordered units are held only by the in-memory inventory ledger,
+    //the ledger flush decrements product stock and settles the order in one transaction
+    @Column(name = "stock_settled", nullable = false)
+    @Getter
+    @Setter
+    private boolean stockSettled = true;
+
+    //bumped on own column changes, items never change after the order is placed
+    @Version
+    @Getter
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         orderDate = LocalDateTime.now();
         orderStatus = OrderStatus.PROCESSING;
     }
 
-    public void addProduct(Product product) {
-        products.add(product);
-    }
-
-    public void removeProduct(Product product) {
-        products.remove(product);
+    public void addItem(Product product, Long quantity) {
+        items.add(new OrderItem(this, product, quantity));
     }
 
-    public List<Product> getProducts() {
-        return List.copyOf(products);
+    public List<OrderItem> getItems() {
+        return List.copyOf(items);
     }
 
     @Override
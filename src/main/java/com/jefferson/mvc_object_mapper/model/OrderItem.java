@@ -0,0 +1,66 @@
+package com.jefferson.mvc_object_mapper.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+//One row per ordered product, unit price is captured when the order is placed
+@Entity
+@Table(
+        name = "order_items",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"order_id", "product_id"},
+                name = "uc_order_item_product_unique"
+        ),
+        //unsettled units of a product are summed by product id, the unique constraint leads with order_id
+        indexes = @Index(name = "idx_order_items_product_id", columnList = "product_id")
+)
+@NoArgsConstructor
+@Getter
+public class OrderItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false, updatable = false)
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id", nullable = false, updatable = false)
+    private Product product;
+
+    @Column(nullable = false, updatable = false)
+    private Long quantity;
+
+    @Column(name = "unit_price", nullable = false, updatable = false)
+    private BigDecimal unitPrice;
+
+    OrderItem(Order order, Product product, Long quantity) {
+        this.order = order;
+        this.product = product;
+        this.quantity = quantity;
+        this.unitPrice = product.getPrice();
+    }
+
+    @Override
+    public boolean equals(Object a) {
+        if(this == a) return true;
+        if(a == null || getClass() != a.getClass()) return false;
+
+        OrderItem other = (OrderItem) a;
+
+        if(id == null && other.id == null) return false;
+        return Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? Objects.hashCode(id) : getClass().hashCode();
+    }
+}
@@ -1,12 +1,26 @@
 package com.jefferson.mvc_object_mapper.repository;
 
 import com.jefferson.mvc_object_mapper.model.Customer;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends CrudRepository<Customer, Long> {
 
     Optional<Customer> findByIdAndDeletedFalse(Long id);
-    Optional<Customer> findByEmailIgnoreCaseAndDeletedFalse(String email);
+    Optional<Customer> findByEmailNormalizedAndDeletedFalse(String emailNormalized);
+    boolean existsByIdAndDeletedFalse(Long id);
+    List<Customer> findAllByIdInAndDeletedFalse(Collection<Long> ids);
+
+    @Query("SELECT c.version FROM Customer c WHERE c.id = :id AND c.deleted = false")
+    Optional<Long> findVersionByIdAndDeletedFalse(@Param("id") Long id);
+
+    //Compares the lower-cased copy, the lookup can use its index unlike UPPER(email) = UPPER(?)
+    default Optional<Customer> findByEmailIgnoreCaseAndDeletedFalse(String email) {
+        return findByEmailNormalizedAndDeletedFalse(Customer.normalizeEmail(email));
+    }
 }
@@ -2,11 +2,68 @@ package com.jefferson.mvc_object_mapper.repository;
 
 import com.jefferson.mvc_object_mapper.common.OrderStatus;
 import com.jefferson.mvc_object_mapper.model.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends CrudRepository<Order, Long> {
 
     Optional<Order> findByIdAndOrderStatusNot(Long id, OrderStatus status);
+    //Keyset scrolling over a customer's orders, items aren't fetched
+    Window<Order> findByCustomerIdAndOrderStatusNot(Long customerId, OrderStatus status,
+                                                    ScrollPosition position, Sort sort, Limit limit);
+
+    //Initializes items of orders already loaded into the persistence context, one statement for the whole page
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") List<Long> ids);
+
+    //Order, customer, items and their products in a single select
+    @Query("SELECT o FROM Order o JOIN FETCH o.customer LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product " +
+            "WHERE o.id = :id AND o.orderStatus <> :status")
+    Optional<Order> findWithItemsByIdAndOrderStatusNot(@Param("id") Long id,
+                                                          @Param("status") OrderStatus status);
+
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.customer LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product " +
+            "WHERE o.id IN :ids AND o.orderStatus <> :status")
+    List<Order> findWithItemsByIdInAndOrderStatusNot(@Param("ids") List<Long> ids,
+                                                     @Param("status") OrderStatus status);
+
+    //Everything the order body shows besides the captured quantities and prices, which never change:
+    //the order version and the product name of every item, null once the product is deleted.
+    //Product versions are left out, every stock reservation bumps them
+    @Query("SELECT o.version AS version, p.name AS productName " +
+            "FROM Order o LEFT JOIN o.items i LEFT JOIN i.product p ON p.deleted = false " +
+            "WHERE o.id = :id AND o.orderStatus <> :status ORDER BY i.id")
+    List<VersionTagPart> findVersionTagPartsByIdAndOrderStatusNot(@Param("id") Long id,
+                                                                  @Param("status") OrderStatus status);
+
+    @Query("SELECT o.id FROM Order o WHERE o.stockSettled = false ORDER BY o.id")
+    List<Long> findUnsettledIds(Limit limit);
+
+    //Units per product held by the given orders
+    @Query("SELECT i.product.id AS productId, SUM(i.quantity) AS quantity FROM OrderItem i " +
+            "WHERE i.order.id IN :ids GROUP BY i.product.id")
+    List<ProductQuantity> sumQuantitiesByProduct(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.stockSettled = true WHERE o.id IN :ids")
+    int markStockSettled(@Param("ids") List<Long> ids);
+
+    interface VersionTagPart {
+        Long getVersion();
+        String getProductName();
+    }
+
+    interface ProductQuantity {
+        Long getProductId();
+        Long getQuantity();
+    }
 }
@@ -1,22 +1,50 @@
 package com.jefferson.mvc_object_mapper.repository;
 
 import com.jefferson.mvc_object_mapper.model.Product;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends CrudRepository<Product, Long>,
-        PagingAndSortingRepository<Product, Long> {
+        PagingAndSortingRepository<Product, Long>, ProductRepositoryCustom {
 
     Page<Product> findAllByDeletedFalse(Pageable pageable);
-    Optional<Product> findByIdAndDeletedFalse(Long id);
+    //Fetches size + 1 rows to detect a next page, no count query
+    Slice<Product> findSliceByDeletedFalse(Pageable pageable);
+    //Keyset scrolling: seeks past the last (sort key, id) pair, no offset and no count query
+    Window<Product> findByDeletedFalse(ScrollPosition position, Sort sort, Limit limit);
 
-    @Query("SELECT p FROM Product p WHERE p.id IN :ids AND p.deleted = false")
-    List<Product> findAllByIdAndDeletedFalse(@Param("ids") List<Long> ids);
+    //Stock minus the units of orders not yet settled against it, in one statement so both sides
+    //come from the same snapshot. Never flushes first: units of orders pending in the persistence context
+    //are still in flight in the ledger, and a flush inside a group commit's savepoint would be undone
+    //with it if that placement rolls back
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT p.quantityInStock - (SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i " +
+            "WHERE i.product.id = p.id AND i.order.stockSettled = false) " +
+            "FROM Product p WHERE p.id = :id AND p.deleted = false")
+    Optional<Long> findAvailableStockByIdAndDeletedFalse(@Param("id") Long id);
+
+    //Scalar projection, read past the persistence context and the second-level cache
+    @Query("SELECT p.id AS id, p.price AS price FROM Product p WHERE p.id IN :ids AND p.deleted = false")
+    List<ProductPrice> findPricesByIdInAndDeletedFalse(@Param("ids") Collection<Long> ids);
+
+    //Goes through EntityManager.find, so the product can be served by the second-level cache
+    default Optional<Product> findByIdAndDeletedFalse(Long id) {
+        return findById(id).filter(product -> !product.isDeleted());
+    }
+
+    interface ProductPrice {
+        Long getId();
+        BigDecimal getPrice();
+    }
 }
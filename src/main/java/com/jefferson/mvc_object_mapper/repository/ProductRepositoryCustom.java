@@ -0,0 +1,20 @@
+package com.jefferson.mvc_object_mapper.repository;
+
+import com.jefferson.mvc_object_mapper.model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    //Non-deleted products in the order of their first id occurrence, missing ids are skipped
+    List<Product> findAllByIdAndDeletedFalse(List<Long> ids);
+
+    //Decrements stock of every product id by its quantity, returns ids that were not updated
+    //(missing, deleted or not enough stock). Must run inside the caller's transaction
+    List<Long> reserveStock(Map<Long, Long> quantities);
+
+    //Decrements stock of every product id by its delta unconditionally, used to settle units
+    //already granted elsewhere. Must run inside the caller's transaction
+    void applyStockDeltas(Map<Long, Long> deltas);
+}
@@ -0,0 +1,135 @@
+package com.jefferson.mvc_object_mapper.repository;
+
+import com.jefferson.mvc_object_mapper.model.Product;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    //the row lock taken by the update makes check and decrement atomic, version keeps optimistic locking honest
+    private static final String RESERVE_STOCK_SQL = "UPDATE products " +
+            "SET quantity_in_stock = quantity_in_stock - ?, version = version + 1 " +
+            "WHERE id = ? AND deleted = false AND quantity_in_stock >= ?";
+    private static final String APPLY_STOCK_DELTA_SQL = "UPDATE products " +
+            "SET quantity_in_stock = quantity_in_stock - ?, version = version + 1 " +
+            "WHERE id = ?";
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ProductRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    //multiLoad resolves ids from the second-level cache first (it is only consulted with an explicit
+    //cache mode), the missing ones are selected in one statement. Result has no duplicates, like an IN query
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> findAllByIdAndDeletedFalse(List<Long> ids) {
+
+        Session session = entityManager.unwrap(Session.class);
+
+        return session.byMultipleIds(Product.class)
+                .with(session.getCacheMode())
+                .multiLoad(ids.stream().distinct().toList())
+                .stream()
+                .filter(Objects::nonNull)
+                .filter(product -> !product.isDeleted())
+                .toList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> reserveStock(Map<Long, Long> quantities) {
+
+        //same lock order in every transaction, two orders can't deadlock on each other's rows
+        List<Long> ids = quantities.keySet().stream().sorted().toList();
+
+        int[] updateCounts = executeBatch(RESERVE_STOCK_SQL, ids, (statement, id) -> {
+            long quantity = quantities.get(id);
+            statement.setLong(1, quantity);
+            statement.setLong(2, id);
+            statement.setLong(3, quantity);
+        });
+
+        List<Long> notReserved = new ArrayList<>();
+        //exactly one row per id, anything else (including SUCCESS_NO_INFO) can't prove the reservation,
+        //the caller rolls back whatever was updated
+        for(int i = 0; i < ids.size(); i++) {
+            if(updateCounts[i] != 1) {
+                notReserved.add(ids.get(i));
+            }
+        }
+        return notReserved;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyStockDeltas(Map<Long, Long> deltas) {
+
+        List<Long> ids = deltas.keySet().stream().sorted().toList();
+
+        executeBatch(APPLY_STOCK_DELTA_SQL, ids, (statement, id) -> {
+            statement.setLong(1, deltas.get(id));
+            statement.setLong(2, id);
+        });
+    }
+
+    private int[] executeBatch(String sql, List<Long> ids, StatementBinder binder) {
+
+        Session session = entityManager.unwrap(Session.class);
+
+        int[] updateCounts = session.doReturningWork(connection -> {
+            try(PreparedStatement statement = connection.prepareStatement(sql)) {
+                for(Long id : ids) {
+                    binder.bind(statement, id);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+
+        bypassSecondLevelCache(session, ids);
+        return updateCounts;
+    }
+
+    //Rows were changed behind Hibernate's back: cached copies are dropped now and again after completion
+    //(a concurrent reader may cache the old committed row in between), and this session stops putting
+    //its uncommitted reads into the shared cache until the transaction ends
+    private void bypassSecondLevelCache(Session session, List<Long> ids) {
+
+        CacheMode cacheMode = session.getCacheMode();
+        org.hibernate.Cache cache = session.getSessionFactory().getCache();
+
+        ids.forEach(id -> cache.evictEntityData(Product.class, id));
+        session.setCacheMode(CacheMode.GET);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ids.forEach(id -> cache.evictEntityData(Product.class, id));
+                if(session.isOpen()) {
+                    session.setCacheMode(cacheMode);
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement statement, Long id) throws SQLException;
+    }
+}
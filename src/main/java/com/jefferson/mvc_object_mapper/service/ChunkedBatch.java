@@ -0,0 +1,121 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+import java.util.*;
+
+//Reading, validation and result bookkeeping of a batch import. Requests are pulled one by one and
+//valid ones are handed to the handler in chunks keyed by their batch index, only the current chunk
+//is held in memory
+@Slf4j
+final class ChunkedBatch<R> {
+
+    private final String itemName;
+    private final Validator validator;
+    private final int chunkSize;
+
+    ChunkedBatch(String itemName, Validator validator, int chunkSize) {
+        this.itemName = itemName;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    BatchResult run(Iterator<R> requests, ChunkHandler<R> handler) {
+
+        List<BatchItemResult> results = new ArrayList<>();
+        Map<Integer, R> chunk = new LinkedHashMap<>();
+
+        int index = 0;
+        while(true) {
+            R request;
+            try {
+                if(!requests.hasNext()) {
+                    break;
+                }
+                request = requests.next();
+            } catch (RuntimeJsonMappingException e) {
+                //the iterator skips the broken item and continues with the next one
+                log.warn("{} batch item {} cannot be read: {}", itemName, index, e.getMessage());
+                results.add(new BatchItemResult(index, BatchItemStatus.INVALID, null,
+                        List.of(itemName + " request cannot be read")));
+                index++;
+                continue;
+            } catch (RuntimeException e) {
+                //malformed JSON, the parser can't find the next item: the batch ends here
+                log.warn("{} batch body is malformed at item {}: {}", itemName, index, e.getMessage());
+                results.add(new BatchItemResult(index, BatchItemStatus.INVALID, null,
+                        List.of(itemName + " request cannot be read, the rest of the batch was skipped")));
+                break;
+            }
+
+            results.add(null);
+            List<String> errors = validate(request);
+            if(errors.isEmpty()) {
+                chunk.put(index, request);
+            }
+            else {
+                results.set(index, new BatchItemResult(index, BatchItemStatus.INVALID, null, errors));
+            }
+
+            if(chunk.size() == chunkSize) {
+                handle(chunk, handler, results);
+            }
+            index++;
+        }
+
+        if(!chunk.isEmpty()) {
+            handle(chunk, handler, results);
+        }
+
+        int created = (int) results.stream()
+                .filter(result -> result.status() == BatchItemStatus.CREATED)
+                .count();
+
+        return new BatchResult(created, results.size() - created, results);
+    }
+
+    private List<String> validate(R request) {
+        if(request == null) {
+            return List.of(itemName + " request mustn't be null");
+        }
+        return validator.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+
+    private void handle(Map<Integer, R> chunk, ChunkHandler<R> handler, List<BatchItemResult> results) {
+        try {
+            handler.handle(chunk, results);
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            //flush runs on the shared EntityManager, its exceptions reach here untranslated
+            log.error("{} batch chunk of {} items failed: {}", itemName, chunk.size(), e.getMessage());
+
+            //items the handler rejected keep their outcome, everything else of the chunk was rolled back
+            for(int index : chunk.keySet()) {
+                if(results.get(index) == null) {
+                    results.set(index, new BatchItemResult(index, BatchItemStatus.FAILED, null,
+                            List.of(itemName + " chunk persistence failed")));
+                }
+            }
+        }
+
+        chunk.clear();
+    }
+
+    //Sets the outcome of every item of the chunk by its index. Created items are only recorded once
+    //their transaction committed, a persistence failure marks whatever is still unset as failed
+    @FunctionalInterface
+    interface ChunkHandler<R> {
+        void handle(Map<Integer, R> chunk, List<BatchItemResult> results);
+    }
+}
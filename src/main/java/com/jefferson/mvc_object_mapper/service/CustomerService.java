@@ -1,5 +1,6 @@
 package com.jefferson.mvc_object_mapper.service;
 
+import com.jefferson.mvc_object_mapper.common.CacheNames;
 import com.jefferson.mvc_object_mapper.dto.CustomerDto;
 import com.jefferson.mvc_object_mapper.dto.CustomerRequest;
 import com.jefferson.mvc_object_mapper.exception.CustomerEmailAlreadyRegisteredException;
@@ -11,6 +12,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
@@ -42,6 +44,14 @@ public class CustomerService {
         return customerMapper.toDto(customer);
     }
 
+    public Long getCustomerVersion(@NotNull(message = "Customer id mustn't be null")
+                                   @Positive(message = "Customer id must be positive")
+                                   Long customerId) {
+
+        return customerRepository.findVersionByIdAndDeletedFalse(customerId)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found for id: " + customerId));
+    }
+
     @Transactional
     public CustomerDto createNewCustomer(@Valid
                                          @NotNull(message = "Customer request mustn't be null")
@@ -60,6 +70,7 @@ public class CustomerService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.CUSTOMER_JSON, key = "#customerId")
     public void deleteCustomerById(@NotNull(message = "Customer id mustn't be null")
                                    @Positive(message = "Customer id must be positive")
                                    Long customerId) {
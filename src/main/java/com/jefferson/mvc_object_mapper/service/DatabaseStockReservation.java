@@ -0,0 +1,37 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+//Conditional update of the product rows, buyers of the same product queue on its row lock
+@Service
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "false", matchIfMissing = true)
+public class DatabaseStockReservation implements StockReservation {
+
+    private final ProductRepository productRepository;
+
+    @Autowired
+    public DatabaseStockReservation(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public List<Long> reserve(Map<Long, Long> quantities) {
+        return productRepository.reserveStock(quantities);
+    }
+
+    //The reserving update ran on the transaction's connection, rolling back to the savepoint undid it
+    @Override
+    public void release(Map<Long, Long> quantities) {
+    }
+
+    @Override
+    public boolean settlesOnCommit() {
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+//Callers queue their placements and a single writer thread commits up to max-batch-size of them,
+//or whatever arrived within max-wait-micros, in one transaction: one commit and batched inserts
+//for the whole group. Each placement runs in a nested transaction (a savepoint), a failing one
+//(insufficient stock) is rolled back alone. If the group's flush or commit fails, its placements are retried one
+//transaction each, so only the offending order fails. A full queue falls back to a transaction
+//on the caller's thread
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "order.group-commit.enabled", havingValue = "true")
+public class GroupCommitOrderWriter implements OrderWriter {
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate nestedTransaction;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public GroupCommitOrderWriter(PlatformTransactionManager transactionManager,
+                                  @Value("${order.group-commit.max-batch-size:50}") int maxBatchSize,
+                                  @Value("${order.group-commit.max-wait-micros:500}") long maxWaitMicros,
+                                  @Value("${order.group-commit.queue-capacity:1000}") int queueCapacity) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nestedTransaction = new TransactionTemplate(transactionManager);
+        this.nestedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::drain, "order-group-commit");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+
+        List<PendingWrite> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.result.completeExceptionally(
+                new IllegalStateException("Order writer stopped before the order was committed")));
+    }
+
+    @Override
+    public OrderDto write(Supplier<OrderDto> placement) {
+
+        PendingWrite pending = new PendingWrite(placement);
+        if(!running || !queue.offer(pending)) {
+            return transactionTemplate.execute(status -> placement.get());
+        }
+
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+
+        while(running) {
+            List<PendingWrite> group = new ArrayList<>(maxBatchSize);
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while(group.size() < maxBatchSize) {
+                    PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if(next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(this::writeAlone);
+                return;
+            }
+
+            try {
+                commit(group);
+            } catch (RuntimeException e) {
+                log.error("Group commit of {} orders failed", group.size(), e);
+                group.stream().filter(pending -> !pending.result.isDone()).forEach(pending ->
+                        pending.result.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> group) {
+
+        Map<PendingWrite, OrderDto> placed = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for(PendingWrite pending : group) {
+                    //reservation updates run on this connection, rolling back to the savepoint undoes them.
+                    //The order itself is only persisted once its reservation succeeded, nothing is left to flush
+                    try {
+                        placed.put(pending, nestedTransaction.execute(nested -> pending.placement.get()));
+                    } catch (RuntimeException e) {
+                        pending.result.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} orders failed, committing them one by one: {}", placed.size(), e.getMessage());
+            placed.keySet().forEach(this::writeAlone);
+            return;
+        }
+        placed.forEach((pending, orderDto) -> pending.result.complete(orderDto));
+    }
+
+    private void writeAlone(PendingWrite pending) {
+
+        try {
+            pending.result.complete(transactionTemplate.execute(status -> pending.placement.get()));
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final Supplier<OrderDto> placement;
+        private final CompletableFuture<OrderDto> result = new CompletableFuture<>();
+
+        private PendingWrite(Supplier<OrderDto> placement) {
+            this.placement = placement;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.repository.OrderRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+//Grants reservations from per-product allotments held in memory, so buyers of a hot product only
+//contend on a striped lock instead of its row lock. Orders are saved as not stock settled and
+//a periodic flush decrements the product rows by their units in batches and settles them.
+//Unsettled orders are the journal: an allotment is loaded as stock minus their units, and
+//whatever a previous run didn't flush is settled on startup. Assumes a single application instance
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class InventoryLedger implements StockReservation {
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock[] stripes;
+    private final Map<Long, Allotment> allotments = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InventoryLedger(ProductRepository productRepository, OrderRepository orderRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${inventory.ledger.stripes:64}") int stripes,
+                           @Value("${inventory.ledger.flush-batch-size:500}") int flushBatchSize) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushBatchSize = flushBatchSize;
+
+        this.stripes = new ReentrantLock[stripes];
+        for(int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<Long> reserve(Map<Long, Long> quantities) {
+
+        //units are only released by the transaction's completion, without one they would be lost
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock reservation requires an active transaction");
+        }
+
+        List<ReentrantLock> locks = lockFor(quantities.keySet());
+        try {
+            List<Long> notReserved = new ArrayList<>();
+            quantities.forEach((productId, quantity) -> {
+                Allotment allotment = loadAllotment(productId);
+                if(allotment == null || allotment.available < quantity) {
+                    notReserved.add(productId);
+                }
+            });
+            if(!notReserved.isEmpty()) {
+                return notReserved.stream().sorted().toList();
+            }
+
+            quantities.forEach((productId, quantity) -> {
+                Allotment allotment = allotments.get(productId);
+                allotment.available -= quantity;
+                allotment.inFlight += quantity;
+            });
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new Reservation(quantities));
+        return List.of();
+    }
+
+    //Savepoint rollbacks don't reach synchronizations, the reservation is completed here instead of
+    //by the transaction's completion
+    @Override
+    public void release(Map<Long, Long> quantities) {
+
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock release requires an active transaction");
+        }
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        for(int i = synchronizations.size() - 1; i >= 0; i--) {
+            if(synchronizations.get(i) instanceof Reservation reservation
+                    && !reservation.completed && reservation.quantities.equals(quantities)) {
+                reservation.completed = true;
+                complete(quantities, false);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean settlesOnCommit() {
+        return false;
+    }
+
+    //Stock set by hand: the allotment is reloaded on next use
+    @TransactionalEventListener
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+
+        List<ReentrantLock> locks = lockFor(Set.of(event.productId()));
+        try {
+            Allotment allotment = allotments.get(event.productId());
+            if(allotment != null) {
+                allotment.stale = true;
+            }
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+
+        int settled = flush();
+        if(settled > 0) {
+            log.info("Settled {} orders left unsettled by the previous run", settled);
+        }
+    }
+
+    //Serialized, two flushes must never settle the same orders twice. A lock rather than synchronized,
+    //a virtual thread blocked on JDBC inside synchronized pins its carrier
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:500}")
+    public int flush() {
+
+        flushLock.lock();
+        try {
+            int settled = 0;
+            int batch;
+            do {
+                batch = settleBatch();
+                settled += batch;
+            } while(batch == flushBatchSize);
+            return settled;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //Allotment only moves on reservation and its completion: settling lowers stock and unsettled
+    //units by the same amount, so available units don't change
+    private int settleBatch() {
+
+        Integer settled = transactionTemplate.execute(status -> {
+            List<Long> orderIds = orderRepository.findUnsettledIds(Limit.of(flushBatchSize));
+            if(orderIds.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, Long> deltas = orderRepository.sumQuantitiesByProduct(orderIds).stream()
+                    .collect(Collectors.toMap(OrderRepository.ProductQuantity::getProductId,
+                            OrderRepository.ProductQuantity::getQuantity));
+            if(!deltas.isEmpty()) {
+                productRepository.applyStockDeltas(deltas);
+            }
+            orderRepository.markStockSettled(orderIds);
+            return orderIds.size();
+        });
+        return settled == null ? 0 : settled;
+    }
+
+    private void complete(Map<Long, Long> quantities, boolean committed) {
+
+        List<ReentrantLock> locks = lockFor(quantities.keySet());
+        try {
+            quantities.forEach((productId, quantity) -> {
+                Allotment allotment = allotments.get(productId);
+                if(allotment != null) {
+                    allotment.inFlight -= quantity;
+                    if(!committed) {
+                        allotment.available += quantity;
+                    }
+                }
+            });
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    //Caller holds the product's stripe. Units reserved by transactions still in flight aren't
+    //visible to the query yet, so they are taken off again on reload
+    private Allotment loadAllotment(Long productId) {
+
+        Allotment allotment = allotments.get(productId);
+        if(allotment != null && !allotment.stale) {
+            return allotment;
+        }
+
+        Optional<Long> available = productRepository.findAvailableStockByIdAndDeletedFalse(productId);
+        if(available.isEmpty()) {
+            allotments.remove(productId);
+            return null;
+        }
+
+        if(allotment == null) {
+            allotment = new Allotment();
+            allotments.put(productId, allotment);
+        }
+        allotment.available = available.get() - allotment.inFlight;
+        allotment.stale = false;
+        return allotment;
+    }
+
+    //Stripes are locked in index order, two reservations can't deadlock on each other
+    private List<ReentrantLock> lockFor(Collection<Long> productIds) {
+
+        List<ReentrantLock> locks = productIds.stream()
+                .mapToInt(id -> Math.floorMod(Long.hashCode(id), stripes.length))
+                .distinct()
+                .sorted()
+                .mapToObj(index -> stripes[index])
+                .toList();
+        locks.forEach(ReentrantLock::lock);
+        return locks;
+    }
+
+    //Completed once, either released early or by the transaction's completion
+    private final class Reservation implements TransactionSynchronization {
+
+        private final Map<Long, Long> quantities;
+        private boolean completed;
+
+        private Reservation(Map<Long, Long> quantities) {
+            this.quantities = quantities;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if(!completed) {
+                completed = true;
+                complete(quantities, status == STATUS_COMMITTED);
+            }
+        }
+    }
+
+    //Guarded by the product's stripe
+    private static final class Allotment {
+        private long available;
+        private long inFlight;
+        private boolean stale;
+    }
+}
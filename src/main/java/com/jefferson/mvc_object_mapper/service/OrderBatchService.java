@@ -0,0 +1,228 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.mapper.OrderMapper;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.Order;
+import com.jefferson.mvc_object_mapper.model.OrderItem;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.OrderRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class OrderBatchService {
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final OrderMapper orderMapper;
+    private final StockReservation stockReservation;
+    private final OrderTotalCalculator orderTotalCalculator;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate nestedTransaction;
+    private final EntityManager entityManager;
+    private final ChunkedBatch<OrderRequest> batch;
+
+    @Autowired
+    public OrderBatchService(OrderRepository orderRepository, CustomerRepository customerRepository,
+                             ProductRepository productRepository, OrderMapper orderMapper,
+                             StockReservation stockReservation, OrderTotalCalculator orderTotalCalculator,
+                             Validator validator, PlatformTransactionManager transactionManager,
+                             EntityManager entityManager,
+                             @Value("${order.batch.chunk-size:200}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.customerRepository = customerRepository;
+        this.productRepository = productRepository;
+        this.orderMapper = orderMapper;
+        this.stockReservation = stockReservation;
+        this.orderTotalCalculator = orderTotalCalculator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nestedTransaction = new TransactionTemplate(transactionManager);
+        this.nestedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.entityManager = entityManager;
+        this.batch = new ChunkedBatch<>("Order", validator, chunkSize);
+    }
+
+    //Customers and products of a whole chunk are loaded with one query each, orders and their items
+    //are inserted with JDBC batches. Every chunk is committed in its own transaction, a failed chunk
+    //doesn't roll back the previous ones
+    public BatchResult createOrders(Iterator<OrderRequest> requests) {
+        return batch.run(requests, this::placeChunk);
+    }
+
+    //Orders whose products changed after they were loaded are rejected, the attempt is rolled back with
+    //all of its reservations and the rest of the chunk placed again
+    private void placeChunk(Map<Integer, OrderRequest> chunk, List<BatchItemResult> results) {
+
+        Map<Integer, OrderRequest> remaining = new LinkedHashMap<>(chunk);
+        while(!remaining.isEmpty()) {
+            Map<Integer, String> changed = tryPlace(remaining, results);
+            if(changed.isEmpty()) {
+                return;
+            }
+
+            remaining.keySet().forEach(index -> results.set(index, null));
+            changed.forEach((index, error) -> {
+                results.set(index, new BatchItemResult(index, BatchItemStatus.INVALID, null, List.of(error)));
+                remaining.remove(index);
+            });
+        }
+    }
+
+    //Returns the errors of orders whose products changed, nothing was committed then
+    private Map<Integer, String> tryPlace(Map<Integer, OrderRequest> chunk, List<BatchItemResult> results) {
+
+        Map<Integer, Order> placed = new LinkedHashMap<>();
+        Map<Integer, String> changed = transactionTemplate.execute(status -> {
+            Map<Long, Customer> customers = customerRepository.findAllByIdInAndDeletedFalse(
+                            chunk.values().stream().map(OrderRequest::customerId).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Customer::getId, Function.identity()));
+            Map<Long, Product> products = productRepository.findAllByIdAndDeletedFalse(
+                            chunk.values().stream()
+                                    .flatMap(orderRequest -> orderRequest.items().stream())
+                                    .map(OrderItemRequest::productId)
+                                    .distinct()
+                                    .toList())
+                    .stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+            //every reservation runs before any order is persisted, rolling back to a savepoint
+            //can't leave pending order inserts behind
+            chunk.forEach((index, orderRequest) -> {
+                Map<Long, Long> quantities = OrderService.quantitiesOf(orderRequest);
+                String error = check(orderRequest, quantities, customers, products);
+                if(error != null) {
+                    results.set(index, new BatchItemResult(index, BatchItemStatus.INVALID, null, List.of(error)));
+                    return;
+                }
+
+                //the database reservation may update some product rows before finding a short one
+                List<Long> notReserved = nestedTransaction.execute(nested -> {
+                    List<Long> shortProducts = stockReservation.reserve(quantities);
+                    if(!shortProducts.isEmpty()) {
+                        nested.setRollbackOnly();
+                    }
+                    return shortProducts;
+                });
+                if(notReserved.isEmpty()) {
+                    placed.put(index, toOrder(orderRequest, quantities, customers, products));
+                }
+                else {
+                    results.set(index, new BatchItemResult(index, BatchItemStatus.FAILED, null,
+                            List.of("Insufficient stock for products: " + notReserved)));
+                }
+            });
+
+            Map<Integer, String> changedOrders = changedSinceLookup(placed);
+            if(!changedOrders.isEmpty()) {
+                status.setRollbackOnly();
+                //loaded products are stale, the next attempt reads them again
+                entityManager.clear();
+                return changedOrders;
+            }
+
+            orderRepository.saveAll(placed.values());
+            entityManager.flush();
+            //placed orders are not needed anymore, keeps the persistence context small between chunks
+            entityManager.clear();
+            return Map.of();
+        });
+
+        if(changed.isEmpty()) {
+            placed.forEach((index, order) ->
+                    results.set(index, new BatchItemResult(index, BatchItemStatus.CREATED, order.getId(), List.of())));
+        }
+        return changed;
+    }
+
+    //Prices were read before the reserving updates locked the product rows, a change committed in between
+    //is caught here with one query for the whole chunk. Same messages as OrderService.createNewOrder
+    private Map<Integer, String> changedSinceLookup(Map<Integer, Order> placed) {
+
+        if(placed.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, BigDecimal> currentPrices = productRepository.findPricesByIdInAndDeletedFalse(
+                        placed.values().stream()
+                                .flatMap(order -> order.getItems().stream())
+                                .map(item -> item.getProduct().getId())
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(ProductRepository.ProductPrice::getId, ProductRepository.ProductPrice::getPrice));
+
+        Map<Integer, String> changed = new LinkedHashMap<>();
+        placed.forEach((index, order) -> {
+            for(OrderItem item : order.getItems()) {
+                BigDecimal currentPrice = currentPrices.get(item.getProduct().getId());
+                if(currentPrice == null) {
+                    changed.put(index, "Order contains product that wasn't found in db");
+                    return;
+                }
+                if(item.getUnitPrice().compareTo(currentPrice) != 0) {
+                    changed.put(index, "Price of product " + item.getProduct().getId() +
+                            " changed while the order was placed");
+                    return;
+                }
+            }
+        });
+        return changed;
+    }
+
+    //Same checks and messages as OrderService.createNewOrder, returns the error or null
+    private String check(OrderRequest orderRequest, Map<Long, Long> quantities,
+                         Map<Long, Customer> customers, Map<Long, Product> products) {
+
+        if(!customers.containsKey(orderRequest.customerId())) {
+            return "Customer not found for id: " + orderRequest.customerId();
+        }
+        if(!products.keySet().containsAll(quantities.keySet())) {
+            return "Order contains product that wasn't found in db";
+        }
+
+        BigDecimal totalPrice = orderTotalCalculator.total(productsOf(quantities, products), quantities);
+        if(orderRequest.totalPrice().compareTo(totalPrice) != 0) {
+            return "Order total " + orderRequest.totalPrice().toPlainString() +
+                    " doesn't match computed total " + totalPrice.toPlainString();
+        }
+        return null;
+    }
+
+    private Order toOrder(OrderRequest orderRequest, Map<Long, Long> quantities,
+                          Map<Long, Customer> customers, Map<Long, Product> products) {
+
+        List<Product> orderProducts = productsOf(quantities, products);
+
+        Order order = orderMapper.toEntity(orderRequest);
+        for(Product product : orderProducts) {
+            order.addItem(product, quantities.get(product.getId()));
+        }
+        order.setCustomer(customers.get(orderRequest.customerId()));
+        order.setTotalPrice(orderTotalCalculator.total(orderProducts, quantities));
+        order.setStockSettled(stockReservation.settlesOnCommit());
+        return order;
+    }
+
+    private List<Product> productsOf(Map<Long, Long> quantities, Map<Long, Product> products) {
+        return quantities.keySet().stream().map(products::get).toList();
+    }
+}
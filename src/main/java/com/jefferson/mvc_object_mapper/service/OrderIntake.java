@@ -0,0 +1,123 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jefferson.mvc_object_mapper.common.OrderIntakeStatus;
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderIntakeDto;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.exception.OrderIntakeFullException;
+import com.jefferson.mvc_object_mapper.exception.OrderNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//Accepts validated orders into a bounded queue and places them on a worker pool through OrderService,
+//so the HTTP response doesn't wait for the database. Callers poll the status by token, statuses are
+//kept for status-ttl-minutes after their last change. In-process only: queued orders are lost if
+//the instance dies, they are drained on a graceful shutdown
+@Slf4j
+@Service
+@Validated
+@ConditionalOnProperty(name = "order.async-intake.enabled", havingValue = "true")
+public class OrderIntake {
+
+    private final OrderService orderService;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, OrderIntakeDto> statuses;
+
+    private final Counter placedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public OrderIntake(OrderService orderService, MeterRegistry meterRegistry,
+                       @Value("${order.async-intake.workers:4}") int workers,
+                       @Value("${order.async-intake.queue-capacity:1000}") int queueCapacity,
+                       @Value("${order.async-intake.status-ttl-minutes:10}") long statusTtlMinutes) {
+        this.orderService = orderService;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("order-intake-"));
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(statusTtlMinutes))
+                .build();
+
+        //drain rate is the rate of order.intake.processed
+        Gauge.builder("order.intake.queue.depth", this.workers, executor -> executor.getQueue().size())
+                .description("Orders accepted and waiting for a worker")
+                .register(meterRegistry);
+        this.placedCounter = Counter.builder("order.intake.processed").tag("outcome", "placed")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("order.intake.processed").tag("outcome", "failed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("order.intake.rejected")
+                .description("Orders turned away because the queue was full")
+                .register(meterRegistry);
+    }
+
+    public OrderIntakeDto submit(@Valid
+                                 @NotNull(message = "Order request mustn't be null")
+                                 OrderRequest orderRequest) {
+
+        String token = UUID.randomUUID().toString();
+        OrderIntakeDto processing = new OrderIntakeDto(token, OrderIntakeStatus.PROCESSING, null, null);
+        statuses.put(token, processing);
+
+        try {
+            workers.execute(() -> place(token, orderRequest));
+        } catch (RejectedExecutionException e) {
+            statuses.invalidate(token);
+            rejectedCounter.increment();
+            throw new OrderIntakeFullException("Order intake is full, retry later");
+        }
+        return processing;
+    }
+
+    public OrderIntakeDto getStatus(@NotNull(message = "Order token mustn't be null") String token) {
+
+        OrderIntakeDto status = statuses.getIfPresent(token);
+        if(status == null) {
+            throw new OrderNotFoundException("Order not found for token: " + token);
+        }
+        return status;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+
+        workers.shutdown();
+        if(!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Order intake stopped with {} orders still queued", workers.getQueue().size());
+        }
+    }
+
+    private void place(String token, OrderRequest orderRequest) {
+
+        try {
+            OrderDto orderDto = orderService.createNewOrder(orderRequest);
+            statuses.put(token, new OrderIntakeDto(token, OrderIntakeStatus.PLACED, orderDto.id(), null));
+            placedCounter.increment();
+        } catch (RuntimeException e) {
+            log.warn("Order {} failed: {}", token, e.getMessage());
+            statuses.put(token, new OrderIntakeDto(token, OrderIntakeStatus.FAILED, null, e.getMessage()));
+            failedCounter.increment();
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.jefferson.mvc_object_mapper.service;
 
+import com.jefferson.mvc_object_mapper.common.BatchGetLimits;
+import com.jefferson.mvc_object_mapper.common.KeysetCursor;
 import com.jefferson.mvc_object_mapper.common.OrderStatus;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
 import com.jefferson.mvc_object_mapper.dto.OrderRequest;
-import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.exception.CustomerNotFoundException;
+import com.jefferson.mvc_object_mapper.exception.InsufficientStockException;
+import com.jefferson.mvc_object_mapper.exception.InvalidCursorException;
 import com.jefferson.mvc_object_mapper.exception.OrderNotFoundException;
+import com.jefferson.mvc_object_mapper.exception.OrderTotalMismatchException;
 import com.jefferson.mvc_object_mapper.exception.ProductNotFoundException;
 import com.jefferson.mvc_object_mapper.mapper.OrderMapper;
 import com.jefferson.mvc_object_mapper.model.Customer;
@@ -14,70 +20,228 @@ import com.jefferson.mvc_object_mapper.model.Product;
 import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
 import com.jefferson.mvc_object_mapper.repository.OrderRepository;
 import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Validated
 public class OrderService {
 
+    private static final String ORDER_DATE_KEY = "orderDate";
+    private static final Sort CUSTOMER_ORDERS_SORT = Sort.by(Sort.Direction.DESC, ORDER_DATE_KEY, "id");
+
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final OrderMapper orderMapper;
+    private final StockReservation stockReservation;
+    private final OrderTotalCalculator orderTotalCalculator;
+    private final Executor orderLookupExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final OrderWriter orderWriter;
+    private final EntityManager entityManager;
 
     @Autowired
     public OrderService(OrderRepository orderRepository, CustomerRepository customerRepository,
-                        ProductRepository productRepository, OrderMapper orderMapper) {
+                        ProductRepository productRepository, OrderMapper orderMapper,
+                        StockReservation stockReservation, OrderTotalCalculator orderTotalCalculator,
+                        @Qualifier("orderLookupExecutor") Executor orderLookupExecutor,
+                        PlatformTransactionManager transactionManager, OrderWriter orderWriter,
+                        EntityManager entityManager) {
         this.orderRepository = orderRepository;
         this.customerRepository =customerRepository;
         this.productRepository = productRepository;
         this.orderMapper = orderMapper;
+        this.stockReservation = stockReservation;
+        this.orderTotalCalculator = orderTotalCalculator;
+        this.orderLookupExecutor = orderLookupExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.orderWriter = orderWriter;
+        this.entityManager = entityManager;
     }
 
     public OrderDto getOrderById(@NotNull(message = "Order id mustn't be null")
                                  @Positive(message = "Order id must be positive")
                                  Long orderId) {
 
-        Order order = orderRepository.findByIdAndOrderStatusNot(orderId, OrderStatus.DELETED)
+        Order order = orderRepository.findWithItemsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found for id: " + orderId));
 
-        return orderMapper.toDtoWithProducts(order);
+        return orderMapper.toDtoWithItems(order);
     }
 
-    @Transactional
+    //Single projection query, the order graph isn't loaded. Order version and a hash of the shown product names
+    public String getOrderVersionTag(@NotNull(message = "Order id mustn't be null")
+                                     @Positive(message = "Order id must be positive")
+                                     Long orderId) {
+
+        List<OrderRepository.VersionTagPart> parts =
+                orderRepository.findVersionTagPartsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+        if(parts.isEmpty()) {
+            throw new OrderNotFoundException("Order not found for id: " + orderId);
+        }
+
+        List<String> productNames = parts.stream()
+                .map(OrderRepository.VersionTagPart::getProductName)
+                .toList();
+        return parts.get(0).getVersion() + "." + Integer.toHexString(productNames.hashCode());
+    }
+
+    //One statement per chunk of ids, each chunk is handed to the consumer in request order before
+    //the next one is loaded. Missing and deleted orders are skipped, repeated ids are returned once.
+    //The request's EntityManager (open in view) is cleared after every chunk, orders of handed over
+    //chunks aren't kept managed until the response is done
+    public void forEachOrderChunk(@NotNull(message = "Order ids mustn't be null")
+                                  @Size(max = BatchGetLimits.MAX_IDS, message = "At most " + BatchGetLimits.MAX_IDS + " order ids per request")
+                                  List<@NotNull(message = "Order id mustn't be null") Long> orderIds,
+                                  Consumer<List<OrderDto>> consumer) {
+
+        List<Long> distinctIds = orderIds.stream().distinct().toList();
+
+        for(int from = 0; from < distinctIds.size(); from += BatchGetLimits.CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + BatchGetLimits.CHUNK_SIZE, distinctIds.size()));
+
+            Map<Long, Order> orders = orderRepository.findWithItemsByIdInAndOrderStatusNot(chunk, OrderStatus.DELETED)
+                    .stream()
+                    .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+            consumer.accept(chunk.stream()
+                    .map(orders::get)
+                    .filter(Objects::nonNull)
+                    .map(orderMapper::toDtoWithItems)
+                    .toList());
+            entityManager.clear();
+        }
+    }
+
+    //Newest first, seeks past the last (orderDate, id) pair. Items of the whole page come from one extra query
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDto> getCustomerOrders(@NotNull(message = "Customer id mustn't be null")
+                                                  @Positive(message = "Customer id must be positive")
+                                                  Long customerId,
+                                                  String cursor,
+                                                  @Positive(message = "Page size must be positive")
+                                                  int size,
+                                                  boolean withItems) {
+
+        if(!customerRepository.existsByIdAndDeletedFalse(customerId)) {
+            throw new CustomerNotFoundException("Customer not found for id: " + customerId);
+        }
+
+        ScrollPosition position = cursor == null
+                ? ScrollPosition.keyset()
+                : ScrollPosition.forward(toKeys(KeysetCursor.decode(cursor)));
+
+        Window<Order> window = orderRepository.findByCustomerIdAndOrderStatusNot(customerId, OrderStatus.DELETED,
+                position, CUSTOMER_ORDERS_SORT, Limit.of(size));
+
+        List<OrderDto> content;
+        if(withItems && !window.isEmpty()) {
+            orderRepository.findWithItemsByIdIn(window.getContent().stream().map(Order::getId).toList());
+            content = window.getContent().stream().map(orderMapper::toDtoWithItems).toList();
+        } else {
+            content = window.getContent().stream().map(orderMapper::toDtoWithoutItems).toList();
+        }
+
+        String nextCursor = null;
+        if(window.hasNext() && !window.isEmpty()) {
+            Order last = window.getContent().get(window.size() - 1);
+            nextCursor = new KeysetCursor(ORDER_DATE_KEY, last.getOrderDate().toString(), last.getId()).encode();
+        }
+
+        return new CursorPage<>(content, nextCursor, nextCursor != null);
+    }
+
+    //Customer and products are looked up concurrently, each in its own read-only transaction, and the
+    //order writer only gets the order once it is known to be valid. Must not be called inside a
+    //transaction: lookups and writer run on other connections and wouldn't see its changes
     public OrderDto createNewOrder(@Valid
                           @NotNull(message = "Order request mustn't be null")
                           OrderRequest orderRequest) {
 
-        Customer customer = customerRepository.findByIdAndDeletedFalse(orderRequest.customerId())
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found for id: " + orderRequest.customerId()));
+        Map<Long, Long> quantities = quantitiesOf(orderRequest);
+        List<Long> productIds = List.copyOf(quantities.keySet());
 
-        List<Long> productIds = orderRequest.products().stream()
-                .map(ProductDto::id).toList();
-        List<Product> products = productRepository.findAllByIdAndDeletedFalse(productIds);
+        CompletableFuture<Optional<Customer>> customerLookup =
+                lookup(() -> customerRepository.findByIdAndDeletedFalse(orderRequest.customerId()));
+        CompletableFuture<List<Product>> productLookup =
+                lookup(() -> productRepository.findAllByIdAndDeletedFalse(productIds));
+
+        Customer customer = join(customerLookup)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found for id: " + orderRequest.customerId()));
+        List<Product> products = join(productLookup);
 
         if(productIds.size() != products.size()) {
             throw new ProductNotFoundException("Order contains product that wasn't found in db");
         }
-
-        Order order = orderMapper.toEntity(orderRequest);
-        for(Product product: products) {
-            order.addProduct(product);
+        //the client's total is only checked, the stored one always comes from current prices
+        BigDecimal totalPrice = orderTotalCalculator.total(products, quantities);
+        if(orderRequest.totalPrice().compareTo(totalPrice) != 0) {
+            throw new OrderTotalMismatchException("Order total " + orderRequest.totalPrice().toPlainString() +
+                    " doesn't match computed total " + totalPrice.toPlainString());
         }
-        order.setCustomer(customer);
 
-        Order savedOrder = orderRepository.save(order);
+        //customer and products are detached here, the order only references them by id
+        return orderWriter.write(() -> {
+            //any exception rolls the reservation back with the transaction
+            List<Long> notReserved = stockReservation.reserve(quantities);
+            try {
+                checkUnchanged(products);
+                if(!notReserved.isEmpty()) {
+                    throw new InsufficientStockException("Insufficient stock for products: " + notReserved);
+                }
+
+                Order order = orderMapper.toEntity(orderRequest);
+                for(Product product: products) {
+                    order.addItem(product, quantities.get(product.getId()));
+                }
+                order.setCustomer(customer);
+                order.setTotalPrice(totalPrice);
+                order.setStockSettled(stockReservation.settlesOnCommit());
 
-        return orderMapper.toDtoWithProducts(savedOrder);
+                Order savedOrder = orderRepository.save(order);
+
+                return orderMapper.toDtoWithItems(savedOrder);
+            } catch (RuntimeException e) {
+                //the writer may only roll back a nested transaction, the outer one completing later
+                //wouldn't give the units back
+                if(notReserved.isEmpty()) {
+                    stockReservation.release(quantities);
+                }
+                throw e;
+            }
+        });
     }
 
     @Transactional
@@ -93,4 +257,62 @@ public class OrderService {
             orderRepository.save(order);
         }
     }
+
+    //Products were looked up before the write transaction, a soft delete or price change since then is
+    //caught here. With database reservations the reserving update holds the rows locked until commit,
+    //the ledger doesn't lock them and only narrows the window to this transaction
+    private void checkUnchanged(List<Product> products) {
+
+        Map<Long, BigDecimal> currentPrices = productRepository.findPricesByIdInAndDeletedFalse(
+                        products.stream().map(Product::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(ProductRepository.ProductPrice::getId, ProductRepository.ProductPrice::getPrice));
+
+        if(currentPrices.size() != products.size()) {
+            throw new ProductNotFoundException("Order contains product that wasn't found in db");
+        }
+        for(Product product : products) {
+            if(product.getPrice().compareTo(currentPrices.get(product.getId())) != 0) {
+                throw new OrderTotalMismatchException("Price of product " + product.getId() +
+                        " changed while the order was placed");
+            }
+        }
+    }
+
+    //Units per product id in ascending id order, repeated product ids are merged
+    static Map<Long, Long> quantitiesOf(OrderRequest orderRequest) {
+        return orderRequest.items().stream()
+                .collect(Collectors.groupingBy(OrderItemRequest::productId, TreeMap::new,
+                        Collectors.summingLong(OrderItemRequest::quantity)));
+    }
+
+    //The waiting caller holds no connection, so lookups queued behind a busy pool always get one
+    private <T> CompletableFuture<T> lookup(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> lookup.get()),
+                orderLookupExecutor);
+    }
+
+    private <T> T join(CompletableFuture<T> lookup) {
+
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Map<String, Object> toKeys(KeysetCursor cursor) {
+
+        if(!ORDER_DATE_KEY.equals(cursor.sortKey())) {
+            throw new InvalidCursorException("Unsupported sort key for cursor paging: " + cursor.sortKey());
+        }
+        try {
+            return Map.of(ORDER_DATE_KEY, LocalDateTime.parse(cursor.sortValue()), "id", cursor.id());
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor value for sort key: " + cursor.sortKey());
+        }
+    }
 }
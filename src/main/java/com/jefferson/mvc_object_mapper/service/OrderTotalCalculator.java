@@ -0,0 +1,44 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class OrderTotalCalculator {
+
+    private static final int CENTS_SCALE = 2;
+
+    //Sum of price * quantity of every product. Prices with up to two fraction digits are added
+    //as long cents with overflow checks, anything else falls back to BigDecimal arithmetic
+    public BigDecimal total(List<Product> products, Map<Long, Long> quantities) {
+
+        try {
+            long totalCents = 0;
+            for(Product product : products) {
+                BigDecimal price = product.getPrice();
+                if(price.scale() > CENTS_SCALE) {
+                    return exactTotal(products, quantities);
+                }
+                long cents = price.movePointRight(CENTS_SCALE).longValueExact();
+                totalCents = Math.addExact(totalCents,
+                        Math.multiplyExact(cents, quantities.get(product.getId())));
+            }
+            return BigDecimal.valueOf(totalCents, CENTS_SCALE);
+        } catch (ArithmeticException e) {
+            return exactTotal(products, quantities);
+        }
+    }
+
+    BigDecimal exactTotal(List<Product> products, Map<Long, Long> quantities) {
+
+        BigDecimal total = BigDecimal.ZERO.setScale(CENTS_SCALE);
+        for(Product product : products) {
+            total = total.add(product.getPrice().multiply(BigDecimal.valueOf(quantities.get(product.getId()))));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,13 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
+
+import java.util.function.Supplier;
+
+//How OrderService commits a validated order, picked by order.group-commit.enabled
+public interface OrderWriter {
+
+    //Runs the placement (stock reservation and insert) in a transaction and returns its result
+    //once committed. Exceptions of the placement or the commit are rethrown to the caller
+    OrderDto write(Supplier<OrderDto> placement);
+}
@@ -0,0 +1,64 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.mapper.ProductMapper;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ProductBatchService {
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ChunkedBatch<ProductRequest> batch;
+
+    @Autowired
+    public ProductBatchService(ProductRepository productRepository, ProductMapper productMapper,
+                               Validator validator, PlatformTransactionManager transactionManager,
+                               EntityManager entityManager,
+                               @Value("${product.batch.chunk-size:500}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.batch = new ChunkedBatch<>("Product", validator, chunkSize);
+    }
+
+    //Every chunk is committed in its own transaction, a failed chunk doesn't roll back the previous ones
+    public BatchResult createProducts(Iterator<ProductRequest> requests) {
+        return batch.run(requests, this::persistChunk);
+    }
+
+    private void persistChunk(Map<Integer, ProductRequest> chunk, List<BatchItemResult> results) {
+
+        Map<Integer, Product> products = new LinkedHashMap<>();
+        chunk.forEach((index, productRequest) -> products.put(index, productMapper.toEntity(productRequest)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.saveAll(products.values());
+            entityManager.flush();
+            //saved products are not needed anymore, keeps the persistence context small between chunks
+            entityManager.clear();
+        });
+
+        products.forEach((index, product) ->
+                results.set(index, new BatchItemResult(index, BatchItemStatus.CREATED, product.getId(), List.of())));
+    }
+}
@@ -1,34 +1,59 @@
 package com.jefferson.mvc_object_mapper.service;
 
+import com.jefferson.mvc_object_mapper.common.BatchGetLimits;
+import com.jefferson.mvc_object_mapper.common.CacheNames;
+import com.jefferson.mvc_object_mapper.common.KeysetCursor;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.exception.InvalidCursorException;
 import com.jefferson.mvc_object_mapper.exception.ProductNotFoundException;
 import com.jefferson.mvc_object_mapper.mapper.ProductMapper;
 import com.jefferson.mvc_object_mapper.model.Product;
 import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Validated
 public class ProductService {
 
+    //Product properties allowed as seek keys, id is always the tie-breaker
+    private static final Set<String> CURSOR_SORT_KEYS = Set.of("id", "name", "price", "createdAt");
+
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper,
+                          ApplicationEventPublisher eventPublisher, EntityManager entityManager) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
     }
 
     public Page<ProductDto> getAllProducts(@NotNull(message = "Pageable arg mustn't be null")
@@ -38,6 +63,65 @@ public class ProductService {
                 .map(productMapper::toDto);
     }
 
+    public Slice<ProductDto> getProductsSlice(@NotNull(message = "Pageable arg mustn't be null")
+                                              Pageable pageable) {
+
+        return productRepository.findSliceByDeletedFalse(pageable)
+                .map(productMapper::toDto);
+    }
+
+    public CursorPage<ProductDto> getProductsAfter(String cursor,
+                                                   @Positive(message = "Page size must be positive")
+                                                   int size,
+                                                   @NotBlank(message = "Sort key mustn't be empty")
+                                                   String sort) {
+
+        KeysetCursor keysetCursor = cursor == null ? null : KeysetCursor.decode(cursor);
+        //a cursor keeps the ordering of the page it was issued for
+        String sortKey = keysetCursor == null ? sort : keysetCursor.sortKey();
+
+        if(!CURSOR_SORT_KEYS.contains(sortKey)) {
+            throw new InvalidCursorException("Unsupported sort key for cursor paging: " + sortKey);
+        }
+
+        ScrollPosition position = keysetCursor == null
+                ? ScrollPosition.keyset()
+                : ScrollPosition.forward(toKeys(keysetCursor));
+        Sort keysetSort = sortKey.equals("id") ? Sort.by("id") : Sort.by(sortKey, "id");
+
+        Window<Product> window = productRepository.findByDeletedFalse(position, keysetSort, Limit.of(size));
+
+        List<ProductDto> content = window.getContent().stream()
+                .map(productMapper::toDto)
+                .toList();
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? toCursor(sortKey, window.getContent().get(window.size() - 1)).encode()
+                : null;
+
+        return new CursorPage<>(content, nextCursor, nextCursor != null);
+    }
+
+    //Products of each chunk come from the second-level cache, only the misses are selected in one statement.
+    //Chunks are handed to the consumer in request order, missing and deleted products are skipped.
+    //The request's EntityManager (open in view) is cleared after every chunk, the second-level cache keeps
+    //the products
+    public void forEachProductChunk(@NotNull(message = "Product ids mustn't be null")
+                                    @Size(max = BatchGetLimits.MAX_IDS, message = "At most " + BatchGetLimits.MAX_IDS + " product ids per request")
+                                    List<@NotNull(message = "Product id mustn't be null") Long> productIds,
+                                    Consumer<List<ProductDto>> consumer) {
+
+        List<Long> distinctIds = productIds.stream().distinct().toList();
+
+        for(int from = 0; from < distinctIds.size(); from += BatchGetLimits.CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + BatchGetLimits.CHUNK_SIZE, distinctIds.size()));
+
+            consumer.accept(productRepository.findAllByIdAndDeletedFalse(chunk).stream()
+                    .map(productMapper::toDto)
+                    .toList());
+            entityManager.clear();
+        }
+    }
+
     public ProductDto getProductById(@NotNull(message = "Product id mustn't be null")
                                      @Positive(message = "Product id must be positive")
                                      Long productId) {
@@ -47,6 +131,16 @@ public class ProductService {
         return productMapper.toDto(product);
     }
 
+    //Served from the second-level cache when the product is there, nothing is mapped
+    public Long getProductVersion(@NotNull(message = "Product id mustn't be null")
+                                  @Positive(message = "Product id must be positive")
+                                  Long productId) {
+
+        return productRepository.findByIdAndDeletedFalse(productId)
+                .map(Product::getVersion)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found for id: " + productId));
+    }
+
     @Transactional
     public ProductDto createNewProduct(@Valid
                                        @NotNull(message = "Product request mustn't be null")
@@ -60,6 +154,7 @@ public class ProductService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.PRODUCT_JSON, key = "#productId")
     public ProductDto updateProductInfo(@NotNull(message = "Product id mustn't be null")
                                         @Positive(message = "Product id must be positive")
                                         Long productId,
@@ -73,6 +168,9 @@ public class ProductService {
         product.setName(productRequest.name());
         product.setDescription(productRequest.description());
         product.setPrice(productRequest.price());
+        if(!Objects.equals(product.getQuantityInStock(), productRequest.quantityInStock())) {
+            eventPublisher.publishEvent(new ProductStockChangedEvent(productId));
+        }
         product.setQuantityInStock(productRequest.quantityInStock());
 
         //it is more obvious
@@ -82,6 +180,7 @@ public class ProductService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.PRODUCT_JSON, key = "#productId")
     public void softDeleteProductById(@NotNull(message = "Product id mustn't be null")
                                       @Positive(message = "Product id must be positive")
                                       Long productId) {
@@ -92,6 +191,32 @@ public class ProductService {
             Product product = productOptional.get();
             product.setDeleted(true);
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductStockChangedEvent(productId));
+        }
+    }
+
+    private KeysetCursor toCursor(String sortKey, Product product) {
+        String sortValue = switch (sortKey) {
+            case "name" -> product.getName();
+            case "price" -> product.getPrice().toPlainString();
+            case "createdAt" -> product.getCreatedAt().toString();
+            default -> null;
+        };
+        return new KeysetCursor(sortKey, sortValue, product.getId());
+    }
+
+    private Map<String, Object> toKeys(KeysetCursor cursor) {
+        try {
+            return switch (cursor.sortKey()) {
+                case "id" -> Map.of("id", cursor.id());
+                case "name" -> Map.of("name", cursor.sortValue(), "id", cursor.id());
+                case "price" -> Map.of("price", new BigDecimal(cursor.sortValue()), "id", cursor.id());
+                case "createdAt" -> Map.of("createdAt", LocalDateTime.parse(cursor.sortValue()), "id", cursor.id());
+                default -> throw new InvalidCursorException("Unsupported sort key for cursor paging: "
+                        + cursor.sortKey());
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor value for sort key: " + cursor.sortKey());
         }
     }
 }
@@ -0,0 +1,5 @@
+package com.jefferson.mvc_object_mapper.service;
+
+//Published by ProductService when stock is set or the product is deleted outside of orders
+public record ProductStockChangedEvent(Long productId) {
+}
@@ -0,0 +1,19 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import java.util.List;
+import java.util.Map;
+
+//How OrderService takes units out of stock, picked by inventory.ledger.enabled
+public interface StockReservation {
+
+    //Reserves every product id's quantity for the current transaction, a rollback releases it.
+    //Returns ids that couldn't be reserved (missing, deleted or not enough stock)
+    List<Long> reserve(Map<Long, Long> quantities);
+
+    //Gives back units of a granted reservation when only a nested transaction around it rolls back
+    //to its savepoint, the rest of the current transaction goes on
+    void release(Map<Long, Long> quantities);
+
+    //false when product rows are decremented later and the order is saved as not stock settled
+    boolean settlesOnCommit();
+}
@@ -0,0 +1,28 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+//One transaction per order on the caller's thread
+@Service
+@ConditionalOnProperty(name = "order.group-commit.enabled", havingValue = "false", matchIfMissing = true)
+public class TransactionalOrderWriter implements OrderWriter {
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public TransactionalOrderWriter(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public OrderDto write(Supplier<OrderDto> placement) {
+        return transactionTemplate.execute(status -> placement.get());
+    }
+}
@@ -0,0 +1,58 @@
+package com.jefferson.mvc_object_mapper;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+//Bytes allocated and time spent per call, measured after a warm-up pass of the same size.
+//Not a benchmark harness: tests log the numbers of two variants side by side and only assert
+//on differences large enough to survive JIT and GC noise
+public final class Measurements {
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Measurements() {
+    }
+
+    public static long bytesPerCall(int calls, Action action) throws Exception {
+
+        repeat(calls, action);
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        repeat(calls, action);
+        return (THREADS.getCurrentThreadAllocatedBytes() - before) / calls;
+    }
+
+    public static long nanosPerCall(int calls, Action action) throws Exception {
+
+        repeat(calls, action);
+        long start = System.nanoTime();
+        repeat(calls, action);
+        return (System.nanoTime() - start) / calls;
+    }
+
+    //Actions are timed in turn for several rounds and each keeps its fastest round, whichever
+    //runs first doesn't pay for compiling the code they share
+    public static long[] fastestNanosPerCall(int rounds, int calls, Action... actions) throws Exception {
+
+        long[] fastest = new long[actions.length];
+        Arrays.fill(fastest, Long.MAX_VALUE);
+        for(int round = 0; round < rounds; round++) {
+            for(int i = 0; i < actions.length; i++) {
+                fastest[i] = Math.min(fastest[i], nanosPerCall(calls, actions[i]));
+            }
+        }
+        return fastest;
+    }
+
+    private static void repeat(int calls, Action action) throws Exception {
+        for(int i = 0; i < calls; i++) {
+            action.run();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+}
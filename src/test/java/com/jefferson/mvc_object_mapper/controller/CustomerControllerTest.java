@@ -1,30 +1,42 @@
 package com.jefferson.mvc_object_mapper.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.mvc_object_mapper.common.OrderStatus;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.CustomerDto;
 import com.jefferson.mvc_object_mapper.dto.CustomerRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
 import com.jefferson.mvc_object_mapper.exception.CustomerEmailAlreadyRegisteredException;
 import com.jefferson.mvc_object_mapper.exception.CustomerNotFoundException;
 import com.jefferson.mvc_object_mapper.exception.PhoneNumberIsNotValidException;
 import com.jefferson.mvc_object_mapper.service.CustomerService;
+import com.jefferson.mvc_object_mapper.service.OrderService;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CustomerController.class)
+@Import({JsonCodecs.class, JsonRequestReader.class, JsonResponseWriter.class,
+        JsonResponseCache.class})
 public class CustomerControllerTest {
 
     @Autowired
@@ -36,6 +48,9 @@ public class CustomerControllerTest {
     @MockitoBean
     private CustomerService customerService;
 
+    @MockitoBean
+    private OrderService orderService;
+
     private final Long validCustomerId = 1L;
     private CustomerDto testCustomerDto;
     private CustomerRequest testCustomerRequest;
@@ -61,10 +76,12 @@ public class CustomerControllerTest {
     @Test
     void getCustomer_ShouldReturnCustomer_WhenCustomerExists() throws Exception {
 
+        when(customerService.getCustomerVersion(validCustomerId)).thenReturn(2L);
         when(customerService.getCustomerById(validCustomerId)).thenReturn(testCustomerDto);
 
         mockMvc.perform(get("/api/v1/customer/{id}", validCustomerId))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
                 .andExpect(jsonPath("$.id").value(validCustomerId))
                 .andExpect(jsonPath("$.firstName").value("John"))
                 .andExpect(jsonPath("$.lastName").value("Doe"))
@@ -77,13 +94,62 @@ public class CustomerControllerTest {
     @Test
     void getCustomer_ShouldReturnNotFound_WhenCustomerNotExists() throws Exception {
 
-        when(customerService.getCustomerById(validCustomerId))
+        when(customerService.getCustomerVersion(validCustomerId))
                 .thenThrow(new CustomerNotFoundException("Customer not found"));
 
         mockMvc.perform(get("/api/v1/customer/{id}", validCustomerId))
                 .andExpect(status().isNotFound());
 
-        verify(customerService).getCustomerById(validCustomerId);
+        verify(customerService, never()).getCustomerById(any());
+    }
+
+    @Test
+    void getCustomerOrders_ShouldReturnCursorPageOfOrders() throws Exception {
+
+        OrderDto orderDto = new OrderDto(5L, validCustomerId, null, LocalDateTime.of(2024, 1, 15, 10, 30),
+                "123 Main St", new BigDecimal("9.99"), OrderStatus.PROCESSING);
+        when(orderService.getCustomerOrders(validCustomerId, "token", 1, true))
+                .thenReturn(new CursorPage<>(List.of(orderDto), "next", true));
+
+        mockMvc.perform(get("/api/v1/customer/{id}/orders", validCustomerId)
+                        .param("cursor", "token")
+                        .param("size", "1")
+                        .param("items", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(5))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        verify(orderService).getCustomerOrders(validCustomerId, "token", 1, true);
+    }
+
+    @Test
+    void getCustomerOrders_ShouldUseDefaults_WhenNoParamsGiven() throws Exception {
+
+        when(orderService.getCustomerOrders(validCustomerId, null, 20, false))
+                .thenReturn(new CursorPage<>(List.of(), null, false));
+
+        mockMvc.perform(get("/api/v1/customer/{id}/orders", validCustomerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty())
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        verify(orderService).getCustomerOrders(validCustomerId, null, 20, false);
+    }
+
+    @Test
+    void getCustomer_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+
+        when(customerService.getCustomerVersion(validCustomerId)).thenReturn(2L);
+
+        mockMvc.perform(get("/api/v1/customer/{id}", validCustomerId)
+                        .header("If-None-Match", "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(content().string(""));
+
+        verify(customerService, never()).getCustomerById(any());
     }
 
     @Test
@@ -148,6 +214,17 @@ public class CustomerControllerTest {
         verifyNoInteractions(customerService);
     }
 
+    @Test
+    void createCustomer_ShouldReturnBadRequest_WhenBodyIsEmpty() throws Exception {
+
+        mockMvc.perform(post("/api/v1/customer/new")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Request body is null or cannot be read."));
+
+        verifyNoInteractions(customerService);
+    }
+
     @Test
     void deleteCustomer_ShouldReturnNoContent_WhenValidId() throws Exception {
 
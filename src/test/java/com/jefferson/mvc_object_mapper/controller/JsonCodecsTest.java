@@ -0,0 +1,71 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jefferson.mvc_object_mapper.Measurements;
+import com.jefferson.mvc_object_mapper.dto.ProductDto;
+import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+public class JsonCodecsTest {
+
+    private static final int CALLS = 20_000;
+
+    private ObjectMapper objectMapper;
+    private JsonCodecs jsonCodecs;
+
+    private final ProductDto productDto = new ProductDto(1L, "Product", "Description",
+            new BigDecimal("9.99"), 3L, LocalDateTime.of(2024, 1, 15, 10, 30));
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        jsonCodecs = new JsonCodecs(objectMapper);
+    }
+
+    @Test
+    void codecs_ShouldReadAndWriteLikeTheObjectMapper() throws Exception {
+
+        String json = objectMapper.writeValueAsString(new ProductRequest("Product", "Description",
+                new BigDecimal("9.99"), 3L));
+
+        assertThat(jsonCodecs.getProductDtoWriter().writeValueAsBytes(productDto))
+                .isEqualTo(objectMapper.writeValueAsBytes(productDto));
+        ProductRequest cachedRead = jsonCodecs.getProductRequestReader().readValue(json);
+        assertThat(cachedRead).isEqualTo(objectMapper.readValue(json, ProductRequest.class));
+    }
+
+    //What controllers did before: every call through the ObjectMapper, root type resolved per call.
+    //Timings are only logged, their gap is within run-to-run noise without a benchmark harness
+    @Test
+    void codecs_ShouldLogCostAgainstPerCallObjectMapperLookups() throws Exception {
+
+        String json = objectMapper.writeValueAsString(new ProductRequest("Product", "Description",
+                new BigDecimal("9.99"), 3L));
+
+        Measurements.Action cachedWrite = () -> jsonCodecs.getProductDtoWriter().writeValueAsBytes(productDto);
+        Measurements.Action mapperWrite = () -> objectMapper.writeValueAsBytes(productDto);
+        Measurements.Action cachedRead = () -> jsonCodecs.getProductRequestReader().readValue(json);
+        Measurements.Action mapperRead = () -> objectMapper.readValue(json, ProductRequest.class);
+        long[] nanos = Measurements.fastestNanosPerCall(5, CALLS, cachedWrite, mapperWrite, cachedRead, mapperRead);
+        long cachedWriteBytes = Measurements.bytesPerCall(CALLS, cachedWrite);
+        long mapperWriteBytes = Measurements.bytesPerCall(CALLS, mapperWrite);
+        long cachedReadBytes = Measurements.bytesPerCall(CALLS, cachedRead);
+        long mapperReadBytes = Measurements.bytesPerCall(CALLS, mapperRead);
+
+        log.info("ProductDto write: cached writer {} ns / {} bytes per call, ObjectMapper {} ns / {} bytes",
+                nanos[0], cachedWriteBytes, nanos[1], mapperWriteBytes);
+        log.info("ProductRequest read: cached reader {} ns / {} bytes per call, ObjectMapper {} ns / {} bytes",
+                nanos[2], cachedReadBytes, nanos[3], mapperReadBytes);
+        assertThat(cachedWriteBytes).isLessThanOrEqualTo(mapperWriteBytes);
+        assertThat(cachedReadBytes).isLessThanOrEqualTo(mapperReadBytes);
+    }
+}
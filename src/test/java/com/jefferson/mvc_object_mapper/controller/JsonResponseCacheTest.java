@@ -0,0 +1,101 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jefferson.mvc_object_mapper.dto.ProductDto;
+import com.jefferson.mvc_object_mapper.exception.ProductNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonResponseCacheTest {
+
+    private static final String CACHE_NAME = "productJson";
+
+    private JsonResponseCache jsonResponseCache;
+    private ConcurrentMapCacheManager cacheManager;
+    private ObjectMapper objectMapper;
+    private ObjectWriter writer;
+    private ProductDto productDto;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        writer = objectMapper.writerFor(ProductDto.class);
+        cacheManager = new ConcurrentMapCacheManager(CACHE_NAME);
+        jsonResponseCache = new JsonResponseCache(cacheManager);
+        productDto = new ProductDto(1L, "Product", "Description",
+                new BigDecimal("9.99"), 3L, LocalDateTime.of(2024, 1, 15, 10, 30));
+    }
+
+    @Test
+    void get_ShouldSerializeOnceAndServeBytesFromCache() throws Exception {
+
+        AtomicInteger loads = new AtomicInteger();
+
+        byte[] first = jsonResponseCache.get(CACHE_NAME, 1L, 0L, writer, () -> {
+            loads.incrementAndGet();
+            return productDto;
+        });
+        byte[] second = jsonResponseCache.get(CACHE_NAME, 1L, 0L, writer, () -> {
+            loads.incrementAndGet();
+            return productDto;
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+        assertThat(first).isEqualTo(objectMapper.writeValueAsBytes(productDto));
+    }
+
+    @Test
+    void get_ShouldReloadAfterEviction() throws Exception {
+
+        AtomicInteger loads = new AtomicInteger();
+
+        jsonResponseCache.get(CACHE_NAME, 1L, 0L, writer, () -> {
+            loads.incrementAndGet();
+            return productDto;
+        });
+        cacheManager.getCache(CACHE_NAME).evict(1L);
+        jsonResponseCache.get(CACHE_NAME, 1L, 0L, writer, () -> {
+            loads.incrementAndGet();
+            return productDto;
+        });
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_ShouldReplaceEntry_WhenVersionChanged() throws Exception {
+
+        ProductDto renamedDto = new ProductDto(1L, "Renamed", "Description",
+                new BigDecimal("9.99"), 3L, LocalDateTime.of(2024, 1, 15, 10, 30));
+
+        jsonResponseCache.get(CACHE_NAME, 1L, 0L, writer, () -> productDto);
+        byte[] newVersion = jsonResponseCache.get(CACHE_NAME, 1L, 1L, writer, () -> renamedDto);
+        byte[] cached = jsonResponseCache.get(CACHE_NAME, 1L, 1L, writer, () -> {
+            throw new IllegalStateException("Must be served from cache");
+        });
+
+        assertThat(newVersion).isEqualTo(objectMapper.writeValueAsBytes(renamedDto));
+        assertThat(cached).isSameAs(newVersion);
+    }
+
+    @Test
+    void get_ShouldPassLoaderExceptionAndCacheNothing() {
+
+        assertThatThrownBy(() -> jsonResponseCache.get(CACHE_NAME, 2L, 0L, writer, () -> {
+            throw new ProductNotFoundException("Product not found for id: 2");
+        })).isInstanceOf(ProductNotFoundException.class);
+
+        assertThat(cacheManager.getCache(CACHE_NAME).get(2L)).isNull();
+    }
+}
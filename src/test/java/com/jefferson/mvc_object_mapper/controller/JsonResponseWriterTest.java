@@ -0,0 +1,130 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jefferson.mvc_object_mapper.Measurements;
+import com.jefferson.mvc_object_mapper.dto.ProductDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+public class JsonResponseWriterTest {
+
+    private JsonResponseWriter jsonResponseWriter;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        jsonResponseWriter = new JsonResponseWriter();
+    }
+
+    @Test
+    void write_ShouldStreamBodyWithStatusAndContentType() throws Exception {
+
+        ProductDto productDto = new ProductDto(1L, "Product", "Description",
+                new BigDecimal("9.99"), 3L, LocalDateTime.of(2024, 1, 15, 10, 30));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        jsonResponseWriter.write(response, HttpStatus.CREATED, objectMapper.writerFor(ProductDto.class), productDto);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(response.getContentAsByteArray()).isEqualTo(objectMapper.writeValueAsBytes(productDto));
+    }
+
+    @Test
+    void write_ShouldDropPartialOutputAndRethrow_WhenSerializationFails() {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> jsonResponseWriter.write(response, HttpStatus.OK,
+                objectMapper.writerFor(BrokenBean.class), new BrokenBean()))
+                .isInstanceOf(JsonMappingException.class);
+
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void writeArray_ShouldWriteEveryChunkIntoOneArray() throws Exception {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        jsonResponseWriter.<Long>writeArray(response, HttpStatus.OK, objectMapper.writerFor(Long.class), sink -> {
+            sink.accept(List.of(1L, 2L));
+            sink.accept(List.of());
+            sink.accept(List.of(3L));
+        });
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(response.getContentAsString()).isEqualTo("[1,2,3]");
+    }
+
+    @Test
+    void writeArray_ShouldDropPartialOutputAndRethrow_WhenChunkSourceFails() {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> jsonResponseWriter.<Long>writeArray(response, HttpStatus.OK,
+                objectMapper.writerFor(Long.class), sink -> {
+                    sink.accept(List.of(1L));
+                    throw new IllegalStateException("Chunk failed");
+                }))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void write_ShouldAllocateLessThanBuildingStringBodyFirst() throws Exception {
+
+        List<ProductDto> page = new ArrayList<>();
+        for(long id = 1; id <= 1_000; id++) {
+            page.add(new ProductDto(id, "Product " + id, "Description of product " + id,
+                    new BigDecimal("9.99"), 3L, LocalDateTime.of(2024, 1, 15, 10, 30)));
+        }
+        ObjectWriter writer = objectMapper.writerFor(new TypeReference<List<ProductDto>>() {});
+
+        long streamed = Measurements.bytesPerCall(50, () ->
+                jsonResponseWriter.write(new MockHttpServletResponse(), HttpStatus.OK, writer, page));
+        //what controllers did before: serialize to a String, the converter encodes it into the response
+        long viaString = Measurements.bytesPerCall(50, () ->
+                new MockHttpServletResponse().getOutputStream()
+                        .write(writer.writeValueAsString(page).getBytes(StandardCharsets.UTF_8)));
+
+        log.info("1000 products: streamed {} bytes allocated per response, via String {}", streamed, viaString);
+        //both pay for the mock response's buffer, the String path also for the String, its encoded copy
+        //and the writer's char buffers
+        assertThat(streamed).isLessThan(viaString);
+    }
+
+    static class BrokenBean {
+
+        public String getName() {
+            return "partial";
+        }
+
+        public String getValue() {
+            throw new IllegalStateException("Broken getter");
+        }
+    }
+}
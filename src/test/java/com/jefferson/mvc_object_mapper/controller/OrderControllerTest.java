@@ -1,34 +1,49 @@
 package com.jefferson.mvc_object_mapper.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
 import com.jefferson.mvc_object_mapper.common.OrderStatus;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
 import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
 import com.jefferson.mvc_object_mapper.dto.OrderRequest;
-import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.exception.CustomerNotFoundException;
+import com.jefferson.mvc_object_mapper.exception.InsufficientStockException;
 import com.jefferson.mvc_object_mapper.exception.OrderNotFoundException;
+import com.jefferson.mvc_object_mapper.exception.OrderTotalMismatchException;
+import com.jefferson.mvc_object_mapper.service.OrderBatchService;
 import com.jefferson.mvc_object_mapper.service.OrderService;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(OrderController.class)
+@Import({JsonCodecs.class, JsonRequestReader.class, JsonResponseWriter.class})
 public class OrderControllerTest {
 
     @Autowired
@@ -40,25 +55,26 @@ public class OrderControllerTest {
     @MockitoBean
     private OrderService orderService;
 
+    @MockitoBean
+    private OrderBatchService orderBatchService;
+
     private final Long validOrderId = 1L;
     private final Long validCustomerId = 1L;
     private OrderDto testOrderDto;
     private OrderRequest testOrderRequest;
-    private List<ProductDto> testProducts;
+    private List<OrderItemDto> testItems;
 
     @BeforeEach
     void setUp() {
-        testProducts = List.of(
-                new ProductDto(1L, "Product 1", "Description 1",
-                        new BigDecimal("19.99"), 10L, LocalDateTime.now()),
-                new ProductDto(2L, "Product 2", "Description 2",
-                        new BigDecimal("29.99"), 5L, LocalDateTime.now())
+        testItems = List.of(
+                new OrderItemDto(1L, "Product 1", 1L, new BigDecimal("19.99")),
+                new OrderItemDto(2L, "Product 2", 1L, new BigDecimal("29.99"))
         );
 
         testOrderDto = new OrderDto(
                 validOrderId,
                 validCustomerId,
-                testProducts,
+                testItems,
                 LocalDateTime.of(2024, 1, 15, 10, 30),
                 "123 Main St, City, Country",
                 new BigDecimal("49.98"),
@@ -67,7 +83,7 @@ public class OrderControllerTest {
 
         testOrderRequest = new OrderRequest(
                 validCustomerId,
-                testProducts,
+                List.of(new OrderItemRequest(1L, 1L), new OrderItemRequest(2L, 1L)),
                 "123 Main St, City, Country",
                 new BigDecimal("49.98")
         );
@@ -76,20 +92,20 @@ public class OrderControllerTest {
     @Test
     void getOrder_ShouldReturnOrder_WhenOrderExists() throws Exception {
 
+        when(orderService.getOrderVersionTag(validOrderId)).thenReturn("3.2.5");
         when(orderService.getOrderById(validOrderId)).thenReturn(testOrderDto);
 
         mockMvc.perform(get("/api/v1/order/{id}", validOrderId))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3.2.5\""))
                 .andExpect(jsonPath("$.id").value(validOrderId))
                 .andExpect(jsonPath("$.customerId").value(validCustomerId))
-                .andExpect(jsonPath("$.products").isArray())
-                .andExpect(jsonPath("$.products.length()").value(2))
-                .andExpect(jsonPath("$.products[0].id").value(1))
-                .andExpect(jsonPath("$.products[0].name").value("Product 1"))
-                .andExpect(jsonPath("$.products[0].description").value("Description 1"))
-                .andExpect(jsonPath("$.products[0].price").value(19.99))
-                .andExpect(jsonPath("$.products[0].quantityInStock").value(10))
-                .andExpect(jsonPath("$.products[0].createdAt").exists())
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].productId").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Product 1"))
+                .andExpect(jsonPath("$.items[0].quantity").value(1))
+                .andExpect(jsonPath("$.items[0].unitPrice").value(19.99))
                 .andExpect(jsonPath("$.shippingAddress").value("123 Main St, City, Country"))
                 .andExpect(jsonPath("$.totalPrice").value(49.98))
                 .andExpect(jsonPath("$.orderStatus").value("PROCESSING"));
@@ -100,13 +116,27 @@ public class OrderControllerTest {
     @Test
     void getOrder_ShouldReturnNotFound_WhenOrderNotExists() throws Exception {
 
-        when(orderService.getOrderById(validOrderId))
+        when(orderService.getOrderVersionTag(validOrderId))
                 .thenThrow(new OrderNotFoundException("Order not found"));
 
         mockMvc.perform(get("/api/v1/order/{id}", validOrderId))
                 .andExpect(status().isNotFound());
 
-        verify(orderService).getOrderById(validOrderId);
+        verify(orderService, never()).getOrderById(any());
+    }
+
+    @Test
+    void getOrder_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+
+        when(orderService.getOrderVersionTag(validOrderId)).thenReturn("3.2.5");
+
+        mockMvc.perform(get("/api/v1/order/{id}", validOrderId)
+                        .header("If-None-Match", "\"3.2.5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3.2.5\""))
+                .andExpect(content().string(""));
+
+        verify(orderService, never()).getOrderById(any());
     }
 
     @Test
@@ -121,10 +151,10 @@ public class OrderControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").value(validOrderId))
                 .andExpect(jsonPath("$.customerId").value(validCustomerId))
-                .andExpect(jsonPath("$.products.length()").value(2))
-                .andExpect(jsonPath("$.products[0].id").value(1))
-                .andExpect(jsonPath("$.products[0].name").value("Product 1"))
-                .andExpect(jsonPath("$.products[0].quantityInStock").value(10))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].productId").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Product 1"))
+                .andExpect(jsonPath("$.items[0].quantity").value(1))
                 .andExpect(jsonPath("$.shippingAddress").value("123 Main St, City, Country"))
                 .andExpect(jsonPath("$.totalPrice").value(49.98))
                 .andExpect(jsonPath("$.orderStatus").value("PROCESSING"));
@@ -147,6 +177,74 @@ public class OrderControllerTest {
         verify(orderService).createNewOrder(any(OrderRequest.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchGetOrders_ShouldStreamOrdersOfAllChunksAsOneArray() throws Exception {
+
+        OrderDto secondOrderDto = new OrderDto(2L, validCustomerId, List.of(),
+                LocalDateTime.of(2024, 1, 16, 10, 30), "456 Side St", new BigDecimal("1.00"),
+                OrderStatus.PROCESSING);
+        doAnswer(invocation -> {
+            Consumer<List<OrderDto>> sink = invocation.getArgument(1);
+            sink.accept(List.of(testOrderDto));
+            sink.accept(List.of(secondOrderDto));
+            return null;
+        }).when(orderService).forEachOrderChunk(eq(List.of(1L, 2L, 3L)), any());
+
+        mockMvc.perform(post("/api/v1/order/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].items.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
+    @Test
+    void batchGetOrders_ShouldReturnBadRequest_WhenIdsAreInvalid() throws Exception {
+
+        doThrow(new ConstraintViolationException("Too many ids", Set.of()))
+                .when(orderService).forEachOrderChunk(any(), any());
+
+        mockMvc.perform(post("/api/v1/order/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void newOrder_ShouldReturnConflict_WhenStockIsInsufficient() throws Exception {
+
+        when(orderService.createNewOrder(any(OrderRequest.class)))
+                .thenThrow(new InsufficientStockException("Insufficient stock for products: [1]"));
+        String requestBody = objectMapper.writeValueAsString(testOrderRequest);
+
+        mockMvc.perform(post("/api/v1/order/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.Error").value("Insufficient stock for products: [1]"));
+
+        verify(orderService).createNewOrder(any(OrderRequest.class));
+    }
+
+    @Test
+    void newOrder_ShouldReturnBadRequest_WhenTotalDoesNotMatch() throws Exception {
+
+        when(orderService.createNewOrder(any(OrderRequest.class)))
+                .thenThrow(new OrderTotalMismatchException("Order total 0.01 doesn't match computed total 50.00"));
+        String requestBody = objectMapper.writeValueAsString(testOrderRequest);
+
+        mockMvc.perform(post("/api/v1/order/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Order total 0.01 doesn't match computed total 50.00"));
+
+        verify(orderService).createNewOrder(any(OrderRequest.class));
+    }
+
     @Test
     void newOrder_ShouldReturnBadRequest_WhenValidationFails() throws Exception {
 
@@ -175,6 +273,61 @@ public class OrderControllerTest {
         verifyNoInteractions(orderService);
     }
 
+    @Test
+    void newOrder_ShouldReturnBadRequest_WhenBodyIsEmpty() throws Exception {
+
+        mockMvc.perform(post("/api/v1/order/new")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Request body is null or cannot be read."));
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void newOrdersBatch_ShouldReturnOutcomeOfEveryOrder_WhenJsonArrayGiven() throws Exception {
+
+        List<OrderRequest> received = new ArrayList<>();
+        when(orderBatchService.createOrders(any())).thenAnswer(invocation -> {
+            Iterator<OrderRequest> requests = invocation.getArgument(0);
+            requests.forEachRemaining(received::add);
+            return new BatchResult(1, 1, List.of(
+                    new BatchItemResult(0, BatchItemStatus.CREATED, 10L, List.of()),
+                    new BatchItemResult(1, BatchItemStatus.FAILED, null, List.of("Insufficient stock for products: [2]"))));
+        });
+
+        mockMvc.perform(post("/api/v1/order/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testOrderRequest, testOrderRequest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(10))
+                .andExpect(jsonPath("$.items[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.items[1].errors[0]").value("Insufficient stock for products: [2]"));
+
+        assertThat(received).containsExactly(testOrderRequest, testOrderRequest);
+    }
+
+    @Test
+    void newOrdersBatch_ShouldReadEveryLine_WhenNdjsonGiven() throws Exception {
+
+        String line = objectMapper.writeValueAsString(testOrderRequest);
+        List<OrderRequest> received = new ArrayList<>();
+        when(orderBatchService.createOrders(any())).thenAnswer(invocation -> {
+            Iterator<OrderRequest> requests = invocation.getArgument(0);
+            requests.forEachRemaining(received::add);
+            return new BatchResult(0, 0, List.of());
+        });
+
+        mockMvc.perform(post("/api/v1/order/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(line + "\n" + line + "\n" + line + "\n"))
+                .andExpect(status().isOk());
+
+        assertThat(received).hasSize(3);
+    }
+
     @Test
     void deleteOrder_ShouldReturnNoContent_WhenValidId() throws Exception {
 
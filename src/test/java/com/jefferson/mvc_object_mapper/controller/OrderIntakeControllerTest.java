@@ -0,0 +1,90 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.jefferson.mvc_object_mapper.common.OrderIntakeStatus;
+import com.jefferson.mvc_object_mapper.dto.OrderIntakeDto;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.exception.OrderIntakeFullException;
+import com.jefferson.mvc_object_mapper.service.OrderBatchService;
+import com.jefferson.mvc_object_mapper.service.OrderIntake;
+import com.jefferson.mvc_object_mapper.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//OrderController with async intake enabled
+@WebMvcTest(OrderController.class)
+@Import({JsonCodecs.class, JsonRequestReader.class, JsonResponseWriter.class})
+public class OrderIntakeControllerTest {
+
+    private static final String ORDER_JSON = """
+            {"customerId": 1, "items": [{"productId": 1, "quantity": 1}],
+             "shippingAddress": "Intake Street 1", "totalPrice": 5.00}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @MockitoBean
+    private OrderBatchService orderBatchService;
+
+    @MockitoBean
+    private OrderIntake orderIntake;
+
+    @Test
+    void newOrder_ShouldReturnAcceptedWithToken_WhenOrderQueued() throws Exception {
+
+        when(orderIntake.submit(any(OrderRequest.class)))
+                .thenReturn(new OrderIntakeDto("abc", OrderIntakeStatus.PROCESSING, null, null));
+
+        mockMvc.perform(post("/api/v1/order/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/order/intake/abc"))
+                .andExpect(jsonPath("$.token").value("abc"))
+                .andExpect(jsonPath("$.status").value("PROCESSING"));
+
+        verify(orderService, never()).createNewOrder(any());
+    }
+
+    @Test
+    void newOrder_ShouldReturnServiceUnavailable_WhenIntakeIsFull() throws Exception {
+
+        when(orderIntake.submit(any(OrderRequest.class)))
+                .thenThrow(new OrderIntakeFullException("Order intake is full, retry later"));
+
+        mockMvc.perform(post("/api/v1/order/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.Error").value("Order intake is full, retry later"));
+    }
+
+    @Test
+    void getOrderIntake_ShouldReturnStatus_WhenOrderPlaced() throws Exception {
+
+        when(orderIntake.getStatus("abc"))
+                .thenReturn(new OrderIntakeDto("abc", OrderIntakeStatus.PLACED, 42L, null));
+
+        mockMvc.perform(get("/api/v1/order/intake/abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PLACED"))
+                .andExpect(jsonPath("$.orderId").value(42));
+    }
+}
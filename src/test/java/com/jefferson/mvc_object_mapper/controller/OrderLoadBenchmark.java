@@ -0,0 +1,128 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Fires orders at /api/v1/order/new from many client threads over real HTTP and logs throughput and
+//p99 latency. Subclasses pick the request execution mode, compare their log lines
+@Slf4j
+abstract class OrderLoadBenchmark {
+
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS = 320;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<String> orderJsons = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        //the JCache manager is shared by every test context in the JVM, products with the same ids
+        //cached from another context's database mustn't be served here
+        entityManagerFactory.getCache().evict(Product.class);
+
+        Customer customer = new Customer();
+        customer.setFirstName("Load");
+        customer.setLastName("Test");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        Long customerId = customerRepository.save(customer).getId();
+
+        //one product per client, so the benchmark measures request handling rather than one hot row lock
+        for(int i = 0; i < CLIENTS; i++) {
+            Long productId = productRepository.save(Product.build("Load " + i, "Description",
+                    new BigDecimal("5.00"), 1_000_000L)).getId();
+            orderJsons.add("""
+                    {"customerId": %d, "items": [{"productId": %d, "quantity": 1}],
+                     "shippingAddress": "Load Street 1", "totalPrice": 5.00}
+                    """.formatted(customerId, productId));
+        }
+    }
+
+    protected abstract String mode();
+
+    @Test
+    void newOrder_ShouldServeConcurrentClients() throws Exception {
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        HttpClient httpClient = HttpClient.newHttpClient();
+        List<HttpRequest> requests = orderJsons.stream()
+                .map(orderJson -> HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/order/new"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(orderJson))
+                        .build())
+                .toList();
+
+        //warms up the connection pool, caches and JIT before the measured run
+        for(HttpRequest request : requests) {
+            httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for(int i = 0; i < REQUESTS; i++) {
+            HttpRequest request = requests.get(i % CLIENTS);
+            futures.add(clients.submit(() -> {
+                start.await();
+                long startNanos = System.nanoTime();
+                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                return new long[] {status, System.nanoTime() - startNanos};
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        long[] latencies = new long[REQUESTS];
+        List<Long> failedStatuses = new ArrayList<>();
+        for(int i = 0; i < REQUESTS; i++) {
+            long[] result = futures.get(i).get(60, TimeUnit.SECONDS);
+            if(result[0] != 201) {
+                failedStatuses.add(result[0]);
+            }
+            latencies[i] = result[1];
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        clients.shutdown();
+
+        Arrays.sort(latencies);
+        log.info("{}: {} orders from {} clients in {} ms ({} orders/s), p50 {} ms, p99 {} ms",
+                mode(), REQUESTS, CLIENTS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                REQUESTS * 1_000_000_000L / elapsedNanos,
+                TimeUnit.NANOSECONDS.toMillis(latencies[REQUESTS / 2]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[REQUESTS * 99 / 100]));
+
+        assertThat(failedStatuses).isEmpty();
+    }
+}
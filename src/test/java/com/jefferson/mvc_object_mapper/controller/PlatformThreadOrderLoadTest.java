@@ -0,0 +1,20 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+//Tomcat worker pool capped below the client count, so requests queue for a thread.
+//Connection pool pinned to the virtual-threads profile's, both runs get the same database capacity
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "server.tomcat.threads.max=32",
+                "spring.datasource.hikari.maximum-pool-size=20",
+                "spring.datasource.hikari.minimum-idle=20",
+                "spring.datasource.hikari.connection-timeout=5000"
+        })
+public class PlatformThreadOrderLoadTest extends OrderLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "platform threads";
+    }
+}
@@ -1,28 +1,41 @@
 package com.jefferson.mvc_object_mapper.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.exception.InvalidCursorException;
 import com.jefferson.mvc_object_mapper.exception.ProductNotFoundException;
+import com.jefferson.mvc_object_mapper.service.ProductBatchService;
 import com.jefferson.mvc_object_mapper.service.ProductService;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -30,6 +43,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProductController.class)
+@Import({JsonCodecs.class, JsonRequestReader.class, JsonResponseWriter.class,
+        JsonResponseCache.class})
 public class ProductControllerTest {
 
     @Autowired
@@ -41,6 +56,9 @@ public class ProductControllerTest {
     @MockitoBean
     private ProductService productService;
 
+    @MockitoBean
+    private ProductBatchService productBatchService;
+
     private final Long validProductId = 1L;
     private ProductDto testProductDto;
     private ProductRequest testProductRequest;
@@ -67,10 +85,12 @@ public class ProductControllerTest {
     @Test
     void getProduct_ShouldReturnProduct_WhenProductExists() throws Exception {
 
+        when(productService.getProductVersion(validProductId)).thenReturn(4L);
         when(productService.getProductById(validProductId)).thenReturn(testProductDto);
 
         mockMvc.perform(get("/api/v1/product/{id}", validProductId))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
                 .andExpect(jsonPath("$.id").value(validProductId))
                 .andExpect(jsonPath("$.name").value("Test Product"))
                 .andExpect(jsonPath("$.description").value("Test Description"))
@@ -84,13 +104,27 @@ public class ProductControllerTest {
     @Test
     void getProduct_ShouldReturnNotFound_WhenProductNotExists() throws Exception {
 
-        when(productService.getProductById(validProductId))
+        when(productService.getProductVersion(validProductId))
                 .thenThrow(new ProductNotFoundException("Product not found"));
 
         mockMvc.perform(get("/api/v1/product/{id}", validProductId))
                 .andExpect(status().isNotFound());
 
-        verify(productService).getProductById(validProductId);
+        verify(productService, never()).getProductById(any());
+    }
+
+    @Test
+    void getProduct_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+
+        when(productService.getProductVersion(validProductId)).thenReturn(4L);
+
+        mockMvc.perform(get("/api/v1/product/{id}", validProductId)
+                        .header("If-None-Match", "\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(content().string(""));
+
+        verify(productService, never()).getProductById(any());
     }
 
     @Test
@@ -120,6 +154,63 @@ public class ProductControllerTest {
         verify(productService).getAllProducts(any(Pageable.class));
     }
 
+    @Test
+    void productsPage_ShouldReturnSliceWithoutTotals_WhenCountDisabled() throws Exception {
+
+        Slice<ProductDto> productsSlice = new SliceImpl<>(
+                List.of(testProductDto),
+                PageRequest.of(0, 1),
+                true
+        );
+
+        when(productService.getProductsSlice(any(Pageable.class))).thenReturn(productsSlice);
+
+        mockMvc.perform(get("/api/v1/product/all")
+                        .param("page", "0")
+                        .param("size", "1")
+                        .param("count", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(validProductId))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+
+        verify(productService).getProductsSlice(any(Pageable.class));
+        verify(productService, never()).getAllProducts(any(Pageable.class));
+    }
+
+    @Test
+    void productsAfter_ShouldReturnCursorPage_WhenValidRequest() throws Exception {
+
+        CursorPage<ProductDto> cursorPage = new CursorPage<>(List.of(testProductDto), "next-token", true);
+
+        when(productService.getProductsAfter("token", 1, "name")).thenReturn(cursorPage);
+
+        mockMvc.perform(get("/api/v1/product")
+                        .param("cursor", "token")
+                        .param("size", "1")
+                        .param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(validProductId))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        verify(productService).getProductsAfter("token", 1, "name");
+    }
+
+    @Test
+    void productsAfter_ShouldReturnBadRequest_WhenCursorInvalid() throws Exception {
+
+        when(productService.getProductsAfter("broken", 10, "id"))
+                .thenThrow(new InvalidCursorException("Invalid cursor: broken"));
+
+        mockMvc.perform(get("/api/v1/product").param("cursor", "broken"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Invalid cursor: broken"));
+    }
+
     @Test
     void newProduct_ShouldReturnCreatedProduct_WhenValidRequest() throws Exception {
 
@@ -167,6 +258,17 @@ public class ProductControllerTest {
         verifyNoInteractions(productService);
     }
 
+    @Test
+    void newProduct_ShouldReturnBadRequest_WhenBodyIsEmpty() throws Exception {
+
+        mockMvc.perform(post("/api/v1/product/new")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Request body is null or cannot be read."));
+
+        verifyNoInteractions(productService);
+    }
+
     @Test
     void updateProduct_ShouldReturnUpdatedProduct_WhenValidRequest() throws Exception {
 
@@ -231,6 +333,75 @@ public class ProductControllerTest {
         verifyNoInteractions(productService);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchGetProducts_ShouldStreamProductsOfAllChunksAsOneArray() throws Exception {
+
+        ProductDto first = new ProductDto(1L, "First", "Description", new BigDecimal("1.00"), 1L, null);
+        ProductDto second = new ProductDto(2L, "Second", "Description", new BigDecimal("2.00"), 2L, null);
+        doAnswer(invocation -> {
+            Consumer<List<ProductDto>> sink = invocation.getArgument(1);
+            sink.accept(List.of(first));
+            sink.accept(List.of(second));
+            return null;
+        }).when(productService).forEachProductChunk(eq(List.of(1L, 2L, 3L)), any());
+
+        mockMvc.perform(post("/api/v1/product/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("First"))
+                .andExpect(jsonPath("$[1].name").value("Second"));
+    }
+
+    @Test
+    void batchGetProducts_ShouldReturnBadRequest_WhenIdsAreInvalid() throws Exception {
+
+        doThrow(new ConstraintViolationException("Too many ids", Set.of()))
+                .when(productService).forEachProductChunk(any(), any());
+
+        mockMvc.perform(post("/api/v1/product/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void newProductsBatch_ShouldReturnItemResults_WhenJsonArrayGiven() throws Exception {
+
+        List<ProductRequest> received = new ArrayList<>();
+        when(productBatchService.createProducts(any())).thenAnswer(invocation -> drain(invocation.getArgument(0), received));
+
+        mockMvc.perform(post("/api/v1/product/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testProductRequest, testProductRequest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.items[1].index").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("CREATED"));
+
+        assertThat(received).containsExactly(testProductRequest, testProductRequest);
+    }
+
+    @Test
+    void newProductsBatch_ShouldReadEveryLine_WhenNdjsonGiven() throws Exception {
+
+        String line = objectMapper.writeValueAsString(testProductRequest);
+        List<ProductRequest> received = new ArrayList<>();
+        when(productBatchService.createProducts(any())).thenAnswer(invocation -> drain(invocation.getArgument(0), received));
+
+        mockMvc.perform(post("/api/v1/product/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(line + "\n" + line + "\n" + line + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(3))
+                .andExpect(jsonPath("$.items.length()").value(3));
+
+        assertThat(received).hasSize(3);
+    }
+
     @Test
     void deleteProduct_ShouldReturnNoContent_WhenValidId() throws Exception {
 
@@ -253,4 +424,13 @@ public class ProductControllerTest {
 
         verify(productService).softDeleteProductById(-1L);
     }
+
+    private BatchResult drain(Iterator<ProductRequest> requests, List<ProductRequest> received) {
+        List<BatchItemResult> items = new ArrayList<>();
+        while(requests.hasNext()) {
+            received.add(requests.next());
+            items.add(new BatchItemResult(items.size(), BatchItemStatus.CREATED, (long) items.size() + 1, List.of()));
+        }
+        return new BatchResult(items.size(), 0, items);
+    }
 }
@@ -0,0 +1,24 @@
+package com.jefferson.mvc_object_mapper.controller;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+//Same load and connection pool as PlatformThreadOrderLoadTest, runs only on a Java 21 build (-Pjava21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "server.tomcat.threads.max=32",
+                "spring.datasource.hikari.maximum-pool-size=20",
+                "spring.datasource.hikari.minimum-idle=20",
+                "spring.datasource.hikari.connection-timeout=5000"
+        })
+@ActiveProfiles("virtual-threads")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadOrderLoadTest extends OrderLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "virtual threads";
+    }
+}
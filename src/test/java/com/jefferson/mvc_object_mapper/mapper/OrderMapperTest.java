@@ -2,8 +2,9 @@ package com.jefferson.mvc_object_mapper.mapper;
 
 import com.jefferson.mvc_object_mapper.common.OrderStatus;
 import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
 import com.jefferson.mvc_object_mapper.dto.OrderRequest;
-import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.model.Customer;
 import com.jefferson.mvc_object_mapper.model.Order;
 import com.jefferson.mvc_object_mapper.model.Product;
@@ -29,8 +30,6 @@ public class OrderMapperTest {
     private Product testProduct1;
     private Product testProduct2;
     private Order testOrder;
-    private ProductDto productDto1;
-    private ProductDto productDto2;
 
     @BeforeEach
     void setUp() {
@@ -57,40 +56,22 @@ public class OrderMapperTest {
         testProduct2.setQuantityInStock(20L);
         testProduct2.setDeleted(false);
 
-        productDto1 = new ProductDto(
-                1L,
-                "Product 1",
-                "description 1",
-                BigDecimal.valueOf(100),
-                10L,
-                LocalDateTime.now()
-        );
-
-        productDto2 = new ProductDto(
-                2L,
-                "Product 2",
-                "description 2",
-                BigDecimal.valueOf(200),
-                20L,
-                LocalDateTime.now()
-        );
-
         testOrder = new Order();
         testOrder.setId(1L);
         testOrder.setCustomer(testCustomer);
-        testOrder.addProduct(testProduct1);
-        testOrder.addProduct(testProduct2);
+        testOrder.addItem(testProduct1, 1L);
+        testOrder.addItem(testProduct2, 3L);
         testOrder.setShippingAddress("Test Address 123");
-        testOrder.setTotalPrice(BigDecimal.valueOf(300));
+        testOrder.setTotalPrice(BigDecimal.valueOf(700));
         testOrder.setOrderStatus(OrderStatus.PROCESSING);
 
         ReflectionTestUtils.setField(testOrder, "orderDate", LocalDateTime.now());
     }
 
     @Test
-    void toDtoWithProducts_ShouldMapAllFieldsCorrectly() {
+    void toDtoWithItems_ShouldMapAllFieldsCorrectly() {
 
-        OrderDto result = orderMapper.toDtoWithProducts(testOrder);
+        OrderDto result = orderMapper.toDtoWithItems(testOrder);
 
         assertThat(result).isNotNull();
         assertThat(result.id()).isEqualTo(testOrder.getId());
@@ -100,27 +81,25 @@ public class OrderMapperTest {
         assertThat(result.orderStatus()).isEqualTo(testOrder.getOrderStatus());
         assertThat(result.orderDate()).isEqualTo(testOrder.getOrderDate());
 
-        assertThat(result.products()).hasSize(2);
-
-        ProductDto resultProduct1 = result.products().get(0);
-        assertThat(resultProduct1.id()).isEqualTo(testProduct1.getId());
-        assertThat(resultProduct1.name()).isEqualTo(testProduct1.getName());
-        assertThat(resultProduct1.description()).isEqualTo(testProduct1.getDescription());
-        assertThat(resultProduct1.price()).isEqualTo(testProduct1.getPrice());
-        assertThat(resultProduct1.quantityInStock()).isEqualTo(testProduct1.getQuantityInStock());
-
-        ProductDto resultProduct2 = result.products().get(1);
-        assertThat(resultProduct2.id()).isEqualTo(testProduct2.getId());
-        assertThat(resultProduct2.name()).isEqualTo(testProduct2.getName());
-        assertThat(resultProduct2.description()).isEqualTo(testProduct2.getDescription());
-        assertThat(resultProduct2.price()).isEqualTo(testProduct2.getPrice());
-        assertThat(resultProduct2.quantityInStock()).isEqualTo(testProduct2.getQuantityInStock());
+        assertThat(result.items()).containsExactly(
+                new OrderItemDto(1L, "Product 1", 1L, BigDecimal.valueOf(100)),
+                new OrderItemDto(2L, "Product 2", 3L, BigDecimal.valueOf(200)));
+    }
+
+    @Test
+    void toDtoWithItems_ShouldSkipItemsOfDeletedProducts() {
+
+        testProduct2.setDeleted(true);
+
+        OrderDto result = orderMapper.toDtoWithItems(testOrder);
+
+        assertThat(result.items()).extracting(OrderItemDto::productId).containsExactly(1L);
     }
 
     @Test
-    void toDtoWithoutProducts_ShouldMapWithoutProducts() {
+    void toDtoWithoutItems_ShouldMapWithoutItems() {
 
-        OrderDto result = orderMapper.toDtoWithoutProducts(testOrder);
+        OrderDto result = orderMapper.toDtoWithoutItems(testOrder);
 
         assertThat(result).isNotNull();
         assertThat(result.id()).isEqualTo(testOrder.getId());
@@ -130,7 +109,7 @@ public class OrderMapperTest {
         assertThat(result.orderStatus()).isEqualTo(testOrder.getOrderStatus());
         assertThat(result.orderDate()).isEqualTo(testOrder.getOrderDate());
 
-        assertThat(result.products()).isNull();
+        assertThat(result.items()).isNull();
     }
 
     @Test
@@ -138,7 +117,7 @@ public class OrderMapperTest {
 
         OrderRequest request = new OrderRequest(
                 1L,
-                List.of(productDto1, productDto2),
+                List.of(new OrderItemRequest(1L, 1L), new OrderItemRequest(2L, 3L)),
                 "Test Address",
                 BigDecimal.valueOf(300)
         );
@@ -148,7 +127,7 @@ public class OrderMapperTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isNull();
         assertThat(result.getCustomer()).isNull();
-        assertThat(result.getProducts()).isEmpty();
+        assertThat(result.getItems()).isEmpty();
         assertThat(result.getShippingAddress()).isEqualTo(request.shippingAddress());
         assertThat(result.getTotalPrice()).isEqualTo(request.totalPrice());
 
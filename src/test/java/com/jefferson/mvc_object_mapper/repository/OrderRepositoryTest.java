@@ -0,0 +1,275 @@
+package com.jefferson.mvc_object_mapper.repository;
+
+import com.jefferson.mvc_object_mapper.common.OrderStatus;
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemDto;
+import com.jefferson.mvc_object_mapper.mapper.OrderMapper;
+import com.jefferson.mvc_object_mapper.mapper.OrderMapperImpl;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.Order;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(OrderMapperImpl.class)
+public class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long orderId;
+    private Long customerId;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setFirstName("John");
+        customer.setLastName("Doe");
+        customer.setEmail("john.doe@example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        entityManager.persist(customer);
+
+        Product product1 = Product.build("Product 1", "Description 1", new BigDecimal("10.00"), 5L);
+        Product product2 = Product.build("Product 2", "Description 2", new BigDecimal("20.00"), 5L);
+        Product deletedProduct = Product.build("Deleted", "Deleted product", new BigDecimal("30.00"), 5L);
+        deletedProduct.setDeleted(true);
+        entityManager.persist(product1);
+        entityManager.persist(product2);
+        entityManager.persist(deletedProduct);
+
+        Order order = Order.build(customer, "123 Main St", new BigDecimal("60.00"));
+        order.addItem(product1, 1L);
+        order.addItem(product2, 2L);
+        order.addItem(deletedProduct, 1L);
+        entityManager.persist(order);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        orderId = order.getId();
+        customerId = customer.getId();
+        productIds = List.of(product1.getId(), product2.getId());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findWithItemsByIdAndOrderStatusNot_ShouldLoadOrderItemsAndCustomerInOneStatement() {
+
+        Optional<Order> result = orderRepository.findWithItemsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+        assertThat(result).isPresent();
+
+        OrderDto orderDto = orderMapper.toDtoWithItems(result.get());
+
+        assertThat(orderDto.customerId()).isEqualTo(customerId);
+        assertThat(orderDto.items())
+                .extracting(OrderItemDto::name, OrderItemDto::quantity)
+                .containsExactlyInAnyOrder(tuple("Product 1", 1L), tuple("Product 2", 2L));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findWithItemsByIdAndOrderStatusNot_ShouldReturnEmpty_WhenOrderDeleted() {
+
+        Order order = entityManager.find(Order.class, orderId);
+        order.setOrderStatus(OrderStatus.DELETED);
+        entityManager.flush();
+        entityManager.clear();
+
+        Optional<Order> result = orderRepository.findWithItemsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void findWithItemsByIdInAndOrderStatusNot_ShouldLoadOrderGraphsInOneStatementSkippingDeleted() {
+
+        Customer customer = entityManager.find(Customer.class, customerId);
+        Order deletedOrder = Order.build(customer, "456 Side St", new BigDecimal("10.00"));
+        entityManager.persist(deletedOrder);
+        deletedOrder.setOrderStatus(OrderStatus.DELETED);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Order> orders = orderRepository.findWithItemsByIdInAndOrderStatusNot(
+                List.of(orderId, deletedOrder.getId(), -1L), OrderStatus.DELETED);
+        List<OrderDto> orderDtos = orders.stream().map(orderMapper::toDtoWithItems).toList();
+
+        assertThat(orderDtos).extracting(OrderDto::id).containsExactly(orderId);
+        assertThat(orderDtos.get(0).items()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findVersionTagPartsByIdAndOrderStatusNot_ShouldFollowShownProductNamesOnly() {
+
+        List<OrderRepository.VersionTagPart> initialParts =
+                orderRepository.findVersionTagPartsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+
+        //a stock or price change bumps the product version but isn't shown in the order body
+        Product product = entityManager.find(Product.class, productIds.get(0));
+        product.setQuantityInStock(1L);
+        product.setPrice(new BigDecimal("11.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<OrderRepository.VersionTagPart> reservedParts =
+                orderRepository.findVersionTagPartsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+
+        product = entityManager.find(Product.class, productIds.get(0));
+        product.setName("Renamed");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<OrderRepository.VersionTagPart> renamedParts =
+                orderRepository.findVersionTagPartsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+
+        //items in insertion order, the deleted product's name is hidden like in the body
+        assertThat(initialParts)
+                .extracting(OrderRepository.VersionTagPart::getVersion, OrderRepository.VersionTagPart::getProductName)
+                .containsExactly(tuple(0L, "Product 1"), tuple(0L, "Product 2"), tuple(0L, null));
+        assertThat(reservedParts)
+                .extracting(OrderRepository.VersionTagPart::getProductName)
+                .containsExactly("Product 1", "Product 2", null);
+        assertThat(renamedParts)
+                .extracting(OrderRepository.VersionTagPart::getProductName)
+                .containsExactly("Renamed", "Product 2", null);
+    }
+
+    @Test
+    void findVersionTagPartsByIdAndOrderStatusNot_ShouldReturnNothing_WhenOrderDeleted() {
+
+        Order order = entityManager.find(Order.class, orderId);
+        order.setOrderStatus(OrderStatus.DELETED);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(orderRepository.findVersionTagPartsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED)).isEmpty();
+    }
+
+    @Test
+    void sumQuantitiesByProduct_ShouldSumItemQuantitiesOfTheGivenOrders() {
+
+        Customer customer = entityManager.find(Customer.class, customerId);
+        Order secondOrder = Order.build(customer, "456 Side St", new BigDecimal("30.00"));
+        secondOrder.addItem(entityManager.find(Product.class, productIds.get(1)), 3L);
+        entityManager.persist(secondOrder);
+        entityManager.flush();
+
+        List<OrderRepository.ProductQuantity> quantities =
+                orderRepository.sumQuantitiesByProduct(List.of(orderId, secondOrder.getId()));
+
+        assertThat(quantities)
+                .extracting(OrderRepository.ProductQuantity::getProductId, OrderRepository.ProductQuantity::getQuantity)
+                .contains(tuple(productIds.get(0), 1L), tuple(productIds.get(1), 5L));
+    }
+
+    @Test
+    void findByCustomerIdAndOrderStatusNot_ShouldScrollNewestFirstSkippingDeletedOrders() {
+
+        Customer customer = entityManager.find(Customer.class, customerId);
+        for(int i = 0; i < 4; i++) {
+            Order order = Order.build(customer, "Address " + i, new BigDecimal("1.00"));
+            entityManager.persist(order);
+            //set after @PrePersist, which starts every order as PROCESSING
+            if(i == 2) {
+                order.setOrderStatus(OrderStatus.DELETED);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Sort sort = Sort.by(Sort.Direction.DESC, "orderDate", "id");
+        List<Order> scrolled = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<Order> window;
+
+        do {
+            window = orderRepository.findByCustomerIdAndOrderStatusNot(customerId, OrderStatus.DELETED,
+                    position, sort, Limit.of(2));
+            scrolled.addAll(window.getContent());
+
+            Order last = window.getContent().get(window.size() - 1);
+            position = ScrollPosition.forward(Map.of("orderDate", last.getOrderDate(), "id", last.getId()));
+        } while (window.hasNext());
+
+        assertThat(scrolled).hasSize(4);
+        assertThat(scrolled).extracting(Order::getOrderStatus).doesNotContain(OrderStatus.DELETED);
+        assertThat(scrolled).isSortedAccordingTo(Comparator.comparing(Order::getOrderDate)
+                .thenComparing(Order::getId).reversed());
+    }
+
+    @Test
+    void findWithItemsByIdIn_ShouldInitializeItemsOfLoadedOrdersInOneStatement() {
+
+        Order order = orderRepository.findByIdAndOrderStatusNot(orderId, OrderStatus.DELETED).orElseThrow();
+        statistics.clear();
+
+        orderRepository.findWithItemsByIdIn(List.of(orderId));
+
+        assertThat(order.getItems()).hasSize(3);
+        assertThat(order.getItems()).extracting(item -> item.getProduct().getName())
+                .contains("Product 1", "Product 2");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saveAll_ShouldBatchOrderAndOrderItemInserts() {
+
+        Customer customer = entityManager.find(Customer.class, customerId);
+        List<Product> products = productIds.stream()
+                .map(id -> entityManager.find(Product.class, id))
+                .toList();
+
+        List<Order> orders = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            Order order = Order.build(customer, "Address " + i, new BigDecimal("30.00"));
+            products.forEach(product -> order.addItem(product, 1L));
+            orders.add(order);
+        }
+        statistics.clear();
+
+        orderRepository.saveAll(orders);
+        entityManager.flush();
+
+        //one batch for orders and one for their items, ids come from the pooled sequence
+        assertThat(orders).extracting(Order::getId).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
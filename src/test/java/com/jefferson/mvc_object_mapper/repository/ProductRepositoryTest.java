@@ -0,0 +1,109 @@
+package com.jefferson.mvc_object_mapper.repository;
+
+import com.jefferson.mvc_object_mapper.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        //duplicated names force the id tie-breaker to be used
+        persist("Banana", false);
+        persist("Apple", false);
+        persist("Banana", false);
+        persist("Deleted", true);
+        persist("Cherry", false);
+        persist("Apple", false);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findByDeletedFalse_ShouldScrollAllNonDeletedProductsByNameAndId() {
+
+        List<Product> scrolled = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<Product> window;
+
+        do {
+            window = productRepository.findByDeletedFalse(position, Sort.by("name", "id"), Limit.of(2));
+            scrolled.addAll(window.getContent());
+
+            Product last = window.getContent().get(window.size() - 1);
+            position = ScrollPosition.forward(Map.of("name", last.getName(), "id", last.getId()));
+        } while (window.hasNext());
+
+        assertThat(scrolled)
+                .extracting(Product::getName)
+                .containsExactly("Apple", "Apple", "Banana", "Banana", "Cherry");
+        assertThat(scrolled.get(0).getId()).isLessThan(scrolled.get(1).getId());
+        assertThat(scrolled.get(2).getId()).isLessThan(scrolled.get(3).getId());
+    }
+
+    @Test
+    void findSliceByDeletedFalse_ShouldDetectNextPageWithoutCountQuery() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Slice<Product> firstSlice = productRepository.findSliceByDeletedFalse(PageRequest.of(0, 3, Sort.by("id")));
+        Slice<Product> lastSlice = productRepository.findSliceByDeletedFalse(PageRequest.of(1, 3, Sort.by("id")));
+
+        assertThat(firstSlice.getNumberOfElements()).isEqualTo(3);
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(lastSlice.getNumberOfElements()).isEqualTo(2);
+        assertThat(lastSlice.hasNext()).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void saveAll_ShouldBatchInsertsAndTakeIdsFromThePooledSequence() {
+
+        List<Product> products = new ArrayList<>();
+        for(int i = 0; i < 20; i++) {
+            products.add(Product.build("Batch " + i, "Description", new BigDecimal("1.00"), 1L));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        productRepository.saveAll(products);
+        entityManager.flush();
+
+        //ids come from the already allocated pool and all rows go out as a single JDBC batch
+        assertThat(products).extracting(Product::getId).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void persist(String name, boolean deleted) {
+        Product product = Product.build(name, "Description", new BigDecimal("1.00"), 1L);
+        product.setDeleted(deleted);
+        entityManager.persist(product);
+    }
+}
@@ -0,0 +1,155 @@
+package com.jefferson.mvc_object_mapper.repository;
+
+import com.jefferson.mvc_object_mapper.common.OrderStatus;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Explains the SQL Hibernate generates for each repository method, captured by a statement inspector.
+//H2 names the index it picks in the EXPLAIN output, a full scan shows up as ".tableScan"
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.jefferson.mvc_object_mapper.repository.SchemaIndexTest$SelectRecorder")
+public class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        //the JCache manager is shared by every test context in the JVM, a cached product issues no select
+        entityManagerFactory.getCache().evict(Product.class);
+    }
+
+    @Test
+    void findAllByDeletedFalse_ShouldUseDeletedIdIndex() {
+
+        assertThat(explainGenerated(() -> productRepository.findAllByDeletedFalse(
+                PageRequest.of(2, 10, Sort.by("id"))), 20, 10))
+                .contains("IDX_PRODUCTS_DELETED_ID")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findByIdAndDeletedFalse_ShouldUseIndexLookupOnId() {
+
+        assertThat(explainGenerated(() -> productRepository.findByIdAndDeletedFalse(1L), 1L))
+                .containsPattern("/\\* PUBLIC\\.\\S+: ID = ")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findByEmailNormalizedAndDeletedFalse_ShouldUseNormalizedEmailIndex() {
+
+        assertThat(explainGenerated(() -> customerRepository.findByEmailNormalizedAndDeletedFalse("john@example.com"),
+                "john@example.com"))
+                .contains("IDX_CUSTOMERS_EMAIL_NORMALIZED_DELETED")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findByEmailIgnoreCaseAndDeletedFalse_ShouldMatchThroughNormalizedEmail() {
+
+        Customer customer = new Customer();
+        customer.setFirstName("John");
+        customer.setLastName("Doe");
+        customer.setEmail("John.Doe@Example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        customerRepository.save(customer);
+
+        assertThat(customerRepository.findByEmailIgnoreCaseAndDeletedFalse("JOHN.DOE@example.COM")).isPresent();
+        assertThat(customerRepository.findByEmailIgnoreCaseAndDeletedFalse("jane.doe@example.com")).isEmpty();
+    }
+
+    @Test
+    void findByIdAndOrderStatusNot_ShouldUsePrimaryKey() {
+
+        assertThat(explainGenerated(() -> orderRepository.findByIdAndOrderStatusNot(1L, OrderStatus.DELETED),
+                1L, OrderStatus.DELETED.name()))
+                .contains("PRIMARY_KEY")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findByCustomerIdAndOrderStatusNot_ShouldUseCustomerForeignKeyIndex() {
+
+        LocalDateTime lastOrderDate = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        //bind order: customer id, status, the (orderDate, id) seek and the limit plus one
+        assertThat(explainGenerated(() -> orderRepository.findByCustomerIdAndOrderStatusNot(1L, OrderStatus.DELETED,
+                        ScrollPosition.forward(Map.of("orderDate", lastOrderDate, "id", 5L)),
+                        Sort.by(Sort.Direction.DESC, "orderDate", "id"), Limit.of(20)),
+                1L, OrderStatus.DELETED.name(), lastOrderDate, lastOrderDate, 5L, 21))
+                .containsPattern("/\\* PUBLIC\\.\\S+: CUSTOMER_ID = ")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findUnsettledIds_ShouldUseStockSettledIndex() {
+
+        assertThat(explainGenerated(() -> orderRepository.findUnsettledIds(Limit.of(500)), 500))
+                .contains("IDX_ORDERS_STOCK_SETTLED_ID")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findAvailableStockByIdAndDeletedFalse_ShouldUseProductIdIndexForUnsettledUnits() {
+
+        assertThat(explainGenerated(() -> productRepository.findAvailableStockByIdAndDeletedFalse(1L), 1L))
+                .contains("IDX_ORDER_ITEMS_PRODUCT_ID")
+                .doesNotContain("tableScan");
+    }
+
+    //First select the call issues, explained with its bind values in statement order
+    private String explainGenerated(Runnable repositoryCall, Object... bindValues) {
+
+        SelectRecorder.SELECTS.clear();
+        repositoryCall.run();
+        assertThat(SelectRecorder.SELECTS).isNotEmpty();
+
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + SelectRecorder.SELECTS.get(0),
+                String.class, bindValues));
+    }
+
+    public static class SelectRecorder implements StatementInspector {
+
+        static final List<String> SELECTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if(sql.startsWith("select")) {
+                SELECTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -103,6 +103,19 @@ public class CustomerServiceTest {
         verifyNoInteractions(customerMapper);
     }
 
+    @Test
+    void getCustomerVersion_ShouldThrowCustomerNotFoundException_WhenCustomerNotFound() {
+
+        when(customerRepository.findVersionByIdAndDeletedFalse(validCustomerId))
+                .thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> customerService.getCustomerVersion(validCustomerId))
+                .isInstanceOf(CustomerNotFoundException.class)
+                .hasMessage("Customer not found for id: " + validCustomerId);
+
+        verifyNoInteractions(customerMapper);
+    }
+
     @Test
     void getCustomerById_ShouldThrowConstraintViolationException_WhenIdIsNull() {
 
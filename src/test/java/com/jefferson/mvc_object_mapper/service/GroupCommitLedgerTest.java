@@ -0,0 +1,101 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.exception.InsufficientStockException;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.OrderRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//A group of exactly two orders, committed as soon as the second one arrives
+@SpringBootTest(properties = {
+        "order.group-commit.enabled=true",
+        "order.group-commit.max-batch-size=2",
+        "order.group-commit.max-wait-micros=10000000",
+        "inventory.ledger.enabled=true",
+        "inventory.ledger.flush-interval-ms=3600000"
+})
+public class GroupCommitLedgerTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        //the JCache manager is shared by every test context in the JVM
+        entityManagerFactory.getCache().evict(Product.class);
+
+        Customer customer = new Customer();
+        customer.setFirstName("Group");
+        customer.setLastName("Ledger");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        customerId = customerRepository.save(customer).getId();
+    }
+
+    @Test
+    void createNewOrder_ShouldKeepEarlierOrderOfTheGroup_WhenLaterPlacementLoadsAllotmentAndFails() throws Exception {
+
+        Long stockedProductId = productRepository.save(Product.build("Stocked", "Description",
+                new BigDecimal("5.00"), 10L)).getId();
+        Long scarceProductId = productRepository.save(Product.build("Scarce", "Description",
+                new BigDecimal("5.00"), 1L)).getId();
+
+        //the scarce product's allotment is loaded inside the second placement's savepoint,
+        //while the first order is still pending in the same persistence context
+        CompletableFuture<OrderDto> first = CompletableFuture.supplyAsync(() ->
+                orderService.createNewOrder(orderRequest(stockedProductId, 2L)));
+        Thread.sleep(500);
+        CompletableFuture<OrderDto> second = CompletableFuture.supplyAsync(() ->
+                orderService.createNewOrder(orderRequest(scarceProductId, 3L)));
+
+        OrderDto placed = first.get(30, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> second.get(30, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(InsufficientStockException.class);
+
+        assertThat(orderRepository.findById(placed.id())).isPresent();
+        inventoryLedger.flush();
+        assertThat(productRepository.findById(stockedProductId).orElseThrow().getQuantityInStock()).isEqualTo(8L);
+        assertThat(productRepository.findById(scarceProductId).orElseThrow().getQuantityInStock()).isEqualTo(1L);
+    }
+
+    private OrderRequest orderRequest(Long productId, Long quantity) {
+        return new OrderRequest(customerId, List.of(new OrderItemRequest(productId, quantity)),
+                "Ledger Street 1", new BigDecimal("5.00").multiply(BigDecimal.valueOf(quantity)));
+    }
+}
@@ -0,0 +1,152 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.exception.InsufficientStockException;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Long wait, so orders submitted together land in the same group
+@SpringBootTest(properties = {
+        "order.group-commit.enabled=true",
+        "order.group-commit.max-wait-micros=50000"
+})
+public class GroupCommitOrderWriterTest {
+
+    private static final int ORDERS = 16;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private GroupCommitOrderWriter groupCommitOrderWriter;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        //the JCache manager is shared by every test context in the JVM
+        entityManagerFactory.getCache().evict(Product.class);
+
+        customerId = customerRepository.save(customer(UUID.randomUUID() + "@example.com")).getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void createNewOrder_ShouldCommitConcurrentOrdersTogetherFailingOnlyTheShortOne() throws Exception {
+
+        List<Long> productIds = new ArrayList<>();
+        for(int i = 0; i < ORDERS; i++) {
+            productIds.add(productRepository.save(Product.build("Grouped " + i, "Description",
+                    new BigDecimal("5.00"), 10L)).getId());
+        }
+        Long scarceProductId = productRepository.save(Product.build("Scarce", "Description",
+                new BigDecimal("5.00"), 1L)).getId();
+
+        List<OrderRequest> orderRequests = new ArrayList<>();
+        productIds.forEach(productId -> orderRequests.add(orderRequest(productId, 2L)));
+        orderRequests.add(orderRequest(scarceProductId, 3L));
+
+        statistics.clear();
+        List<Future<?>> futures = submitTogether(orderRequests.stream()
+                .<Callable<Object>>map(orderRequest -> () -> orderService.createNewOrder(orderRequest))
+                .toList());
+
+        for(int i = 0; i < ORDERS; i++) {
+            futures.get(i).get(30, TimeUnit.SECONDS);
+        }
+        assertThatThrownBy(() -> futures.get(ORDERS).get(30, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(InsufficientStockException.class);
+
+        //two read-only lookups per order, the rest are group commits
+        long writeTransactions = statistics.getTransactionCount() - 2L * orderRequests.size();
+        assertThat(writeTransactions).isBetween(1L, (long) ORDERS / 2);
+        productIds.forEach(productId ->
+                assertThat(productRepository.findById(productId).orElseThrow().getQuantityInStock()).isEqualTo(8L));
+        assertThat(productRepository.findById(scarceProductId).orElseThrow().getQuantityInStock()).isEqualTo(1L);
+    }
+
+    @Test
+    void write_ShouldFailOnlyTheOffendingPlacement_WhenGroupCommitHitsConstraint() throws Exception {
+
+        String takenEmail = customerRepository.findById(customerId).orElseThrow().getEmail();
+        String freeEmail = UUID.randomUUID() + "@example.com";
+
+        //the duplicate email only fails on flush, taking the whole group down with it
+        List<Future<?>> futures = submitTogether(List.of(
+                () -> groupCommitOrderWriter.write(() -> {
+                    customerRepository.save(customer(takenEmail));
+                    return null;
+                }),
+                () -> groupCommitOrderWriter.write(() -> {
+                    customerRepository.save(customer(freeEmail));
+                    return null;
+                })));
+
+        assertThatThrownBy(() -> futures.get(0).get(30, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DataIntegrityViolationException.class);
+        futures.get(1).get(30, TimeUnit.SECONDS);
+        assertThat(customerRepository.findByEmailIgnoreCaseAndDeletedFalse(freeEmail)).isPresent();
+    }
+
+    private List<Future<?>> submitTogether(List<Callable<Object>> tasks) {
+
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for(Callable<Object> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        return futures;
+    }
+
+    private OrderRequest orderRequest(Long productId, Long quantity) {
+        return new OrderRequest(customerId, List.of(new OrderItemRequest(productId, quantity)),
+                "Group Street 1", new BigDecimal("5.00").multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    private Customer customer(String email) {
+        Customer customer = new Customer();
+        customer.setFirstName("Group");
+        customer.setLastName("Commit");
+        customer.setEmail(email);
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        return customer;
+    }
+}
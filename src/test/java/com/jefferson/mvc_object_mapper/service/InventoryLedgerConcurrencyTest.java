@@ -0,0 +1,157 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.exception.InsufficientStockException;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.OrderRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+//the scheduled flush only runs once on startup, the test flushes by hand
+@SpringBootTest(properties = {
+        "inventory.ledger.enabled=true",
+        "inventory.ledger.flush-interval-ms=3600000"
+})
+public class InventoryLedgerConcurrencyTest {
+
+    private static final long INITIAL_STOCK = 40;
+    private static final int THREADS = 12;
+    private static final int ATTEMPTS = 120;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    private Long customerId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setFirstName("Stress");
+        customer.setLastName("Test");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        customerId = customerRepository.save(customer).getId();
+
+        productId = productRepository.save(Product.build("Contended", "Description",
+                new BigDecimal("5.00"), INITIAL_STOCK)).getId();
+    }
+
+    @Test
+    void createNewOrder_ShouldNeverOversellAndFlushUnitsLater_WhenOrdersRaceForTheSameProduct() throws Exception {
+
+        //cached before the race, stock updates must not leave it stale
+        productService.getProductById(productId);
+
+        OrderRequest orderRequest = new OrderRequest(customerId,
+                List.of(new OrderItemRequest(productId, 1L)),
+                "Stress Street 1", new BigDecimal("5.00"));
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for(int i = 0; i < ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.createNewOrder(orderRequest);
+                    placed.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                } catch (RuntimeException e) {
+                    unexpected.add(e);
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for(Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+
+        log.info("{} order attempts on {} threads in {} ms ({} orders/s), placed {}, rejected {}",
+                ATTEMPTS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                ATTEMPTS * 1_000_000_000L / elapsedNanos, placed.get(), rejected.get());
+
+        assertThat(unexpected).isEmpty();
+        assertThat(placed.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(rejected.get()).isEqualTo(ATTEMPTS - INITIAL_STOCK);
+        //granted in memory only, the row is untouched until the flush
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantityInStock()).isEqualTo(INITIAL_STOCK);
+        assertThat(orderRepository.findUnsettledIds(Limit.of(ATTEMPTS))).hasSize((int) INITIAL_STOCK);
+
+        inventoryLedger.flush();
+
+        assertThat(orderRepository.findUnsettledIds(Limit.of(ATTEMPTS))).isEmpty();
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantityInStock()).isZero();
+        assertThat(productService.getProductById(productId).quantityInStock()).isZero();
+    }
+
+    @Test
+    void createNewOrder_ShouldGrantRestockedUnits_WhenStockIsSetByHand() {
+
+        OrderRequest orderRequest = new OrderRequest(customerId,
+                List.of(new OrderItemRequest(productId, 1L)),
+                "Restock Street 1", new BigDecimal("5.00"));
+
+        for(int i = 0; i < INITIAL_STOCK; i++) {
+            orderService.createNewOrder(orderRequest);
+        }
+        assertThatThrownBy(() -> orderService.createNewOrder(orderRequest))
+                .isInstanceOf(InsufficientStockException.class);
+
+        inventoryLedger.flush();
+        productService.updateProductInfo(productId,
+                new ProductRequest("Contended", "Description", new BigDecimal("5.00"), 1L));
+
+        orderService.createNewOrder(orderRequest);
+        assertThatThrownBy(() -> orderService.createNewOrder(orderRequest))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+}
@@ -0,0 +1,203 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.repository.OrderRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryLedgerTest {
+
+    private InventoryLedger inventoryLedger;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void initTests() {
+        inventoryLedger = new InventoryLedger(productRepository, orderRepository, transactionManager, 4, 2);
+    }
+
+    @Test
+    void reserve_ShouldGrantFromAllotmentLoadedOnce() {
+
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(1L)).thenReturn(Optional.of(3L));
+
+        List<Long> first = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 2L));
+        List<Long> second = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 2L));
+        List<Long> third = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 1L));
+
+        assertThat(first).isEmpty();
+        assertThat(second).containsExactly(1L);
+        assertThat(third).isEmpty();
+        verify(productRepository, times(1)).findAvailableStockByIdAndDeletedFalse(1L);
+    }
+
+    @Test
+    void reserve_ShouldReleaseUnits_WhenTransactionRollsBack() {
+
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(1L)).thenReturn(Optional.of(2L));
+
+        List<Long> rolledBack = reserveIn(TransactionSynchronization.STATUS_ROLLED_BACK, Map.of(1L, 2L));
+        List<Long> committed = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 2L));
+
+        assertThat(rolledBack).isEmpty();
+        assertThat(committed).isEmpty();
+    }
+
+    @Test
+    void release_ShouldReturnUnitsOnce_WhenNestedTransactionRollsBack() {
+
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(1L)).thenReturn(Optional.of(2L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(inventoryLedger.reserve(Map.of(1L, 2L))).isEmpty();
+            //rolled back to its savepoint, the next placement of the same transaction gets the units
+            inventoryLedger.release(Map.of(1L, 2L));
+            assertThat(inventoryLedger.reserve(Map.of(1L, 2L))).isEmpty();
+
+            for(TransactionSynchronization synchronization :
+                    new ArrayList<>(TransactionSynchronizationManager.getSynchronizations())) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        List<Long> afterCommit = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 1L));
+
+        assertThat(afterCommit).containsExactly(1L);
+    }
+
+    @Test
+    void reserve_ShouldReserveNothing_WhenAnyProductIsShortOrMissing() {
+
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(1L)).thenReturn(Optional.of(1L));
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(2L)).thenReturn(Optional.of(1L));
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(3L)).thenReturn(Optional.empty());
+
+        List<Long> failed = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 1L, 2L, 5L, 3L, 1L));
+        List<Long> retried = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 1L, 2L, 1L));
+
+        assertThat(failed).containsExactly(2L, 3L);
+        assertThat(retried).isEmpty();
+    }
+
+    @Test
+    void reserve_ShouldKeepUnits_WhenNoTransactionIsActive() {
+
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(1L)).thenReturn(Optional.of(2L));
+
+        assertThatThrownBy(() -> inventoryLedger.reserve(Map.of(1L, 2L)))
+                .isInstanceOf(IllegalStateException.class);
+        List<Long> committed = reserveIn(TransactionSynchronization.STATUS_COMMITTED, Map.of(1L, 2L));
+
+        assertThat(committed).isEmpty();
+    }
+
+    @Test
+    void onProductStockChanged_ShouldReloadAllotmentWithoutUnitsStillInFlight() {
+
+        when(productRepository.findAvailableStockByIdAndDeletedFalse(1L))
+                .thenReturn(Optional.of(5L))
+                .thenReturn(Optional.of(10L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            //not completed yet, the reloaded stock can't include these units
+            assertThat(inventoryLedger.reserve(Map.of(1L, 4L))).isEmpty();
+
+            inventoryLedger.onProductStockChanged(new ProductStockChangedEvent(1L));
+
+            assertThat(inventoryLedger.reserve(Map.of(1L, 7L))).containsExactly(1L);
+            assertThat(inventoryLedger.reserve(Map.of(1L, 6L))).isEmpty();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(productRepository, times(2)).findAvailableStockByIdAndDeletedFalse(1L);
+    }
+
+    @Test
+    void flush_ShouldApplyNetDeltasAndSettleOrdersInBatches() {
+
+        when(orderRepository.findUnsettledIds(Limit.of(2)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+        when(orderRepository.sumQuantitiesByProduct(List.of(1L, 2L)))
+                .thenReturn(List.of(quantity(10L, 2L), quantity(11L, 1L)));
+        when(orderRepository.sumQuantitiesByProduct(List.of(3L)))
+                .thenReturn(List.of(quantity(10L, 1L)));
+
+        int settled = inventoryLedger.flush();
+
+        assertThat(settled).isEqualTo(3);
+        verify(productRepository).applyStockDeltas(Map.of(10L, 2L, 11L, 1L));
+        verify(productRepository).applyStockDeltas(Map.of(10L, 1L));
+        verify(orderRepository).markStockSettled(List.of(1L, 2L));
+        verify(orderRepository).markStockSettled(List.of(3L));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void flush_ShouldDoNothing_WhenEverythingIsSettled() {
+
+        when(orderRepository.findUnsettledIds(Limit.of(2))).thenReturn(List.of());
+
+        int settled = inventoryLedger.flush();
+
+        assertThat(settled).isZero();
+        verify(productRepository, never()).applyStockDeltas(any());
+        verify(orderRepository, never()).markStockSettled(any());
+    }
+
+    private List<Long> reserveIn(int completionStatus, Map<Long, Long> quantities) {
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            List<Long> notReserved = inventoryLedger.reserve(quantities);
+            for(TransactionSynchronization synchronization :
+                    new ArrayList<>(TransactionSynchronizationManager.getSynchronizations())) {
+                synchronization.afterCompletion(completionStatus);
+            }
+            return notReserved;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private OrderRepository.ProductQuantity quantity(Long productId, Long quantity) {
+        return new OrderRepository.ProductQuantity() {
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
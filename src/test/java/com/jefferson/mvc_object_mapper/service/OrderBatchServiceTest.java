@@ -0,0 +1,265 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.mapper.OrderMapper;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.OrderRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+public class OrderBatchServiceTest {
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private StockReservation stockReservation;
+
+    @Autowired
+    private OrderTotalCalculator orderTotalCalculator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Long customerId;
+    private Long cheapProductId;
+    private Long scarceProductId;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setFirstName("Batch");
+        customer.setLastName("Buyer");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        customerId = customerRepository.save(customer).getId();
+
+        cheapProductId = productRepository.save(Product.build("Cheap", "Description",
+                new BigDecimal("1.00"), 1_000L)).getId();
+        scarceProductId = productRepository.save(Product.build("Scarce", "Description",
+                new BigDecimal("5.00"), 1L)).getId();
+
+        //shared across test contexts, products must come from the database
+        entityManagerFactory.getCache().evict(Product.class);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void createOrders_ShouldReturnOutcomeOfEveryOrder() {
+
+        BatchResult result = orderBatchService.createOrders(Arrays.asList(
+                order(customerId, "2.00", item(cheapProductId, 2L)),
+                order(Long.MAX_VALUE, "1.00", item(cheapProductId, 1L)),
+                order(customerId, "1.00", item(Long.MAX_VALUE, 1L)),
+                order(customerId, "9.99", item(cheapProductId, 1L)),
+                order(customerId, "13.00", item(cheapProductId, 3L), item(scarceProductId, 2L)),
+                null,
+                order(customerId, "6.00", item(cheapProductId, 1L), item(scarceProductId, 1L))
+        ).iterator());
+
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(5);
+        assertThat(result.items()).extracting(BatchItemResult::status).containsExactly(
+                BatchItemStatus.CREATED, BatchItemStatus.INVALID, BatchItemStatus.INVALID, BatchItemStatus.INVALID,
+                BatchItemStatus.FAILED, BatchItemStatus.INVALID, BatchItemStatus.CREATED);
+        assertThat(result.items().get(1).errors()).containsExactly("Customer not found for id: " + Long.MAX_VALUE);
+        assertThat(result.items().get(2).errors()).containsExactly("Order contains product that wasn't found in db");
+        assertThat(result.items().get(3).errors()).containsExactly("Order total 9.99 doesn't match computed total 1.00");
+        assertThat(result.items().get(4).errors()).containsExactly("Insufficient stock for products: [" + scarceProductId + "]");
+
+        assertThat(orderRepository.findById(result.items().get(0).id())).isPresent();
+        assertThat(orderRepository.findById(result.items().get(6).id())).isPresent();
+        //the short order's reservation of the cheap product was rolled back with its nested transaction
+        assertThat(productRepository.findById(cheapProductId).orElseThrow().getQuantityInStock()).isEqualTo(997L);
+        assertThat(productRepository.findById(scarceProductId).orElseThrow().getQuantityInStock()).isZero();
+    }
+
+    @Test
+    void createOrders_ShouldNotIssueStatementsPerOrder() {
+
+        List<OrderRequest> orders = new ArrayList<>();
+        for(int i = 0; i < 100; i++) {
+            orders.add(order(customerId, "2.00", item(cheapProductId, 2L)));
+        }
+
+        BatchResult result = orderBatchService.createOrders(orders.iterator());
+
+        assertThat(result.created()).isEqualTo(100);
+        //one select each for customers, products and current prices, pooled sequence calls and two insert batches;
+        //reservations go through plain JDBC batches and aren't counted here
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(15);
+        assertThat(productRepository.findById(cheapProductId).orElseThrow().getQuantityInStock()).isEqualTo(800L);
+    }
+
+    @Test
+    void createOrders_ShouldMarkOnlyTheChunkFailingOnFlush() {
+
+        //a validator that lets everything through, the oversized address only fails on insert
+        OrderBatchService unvalidatedBatchService = new OrderBatchService(orderRepository, customerRepository,
+                productRepository, orderMapper, stockReservation, orderTotalCalculator, mock(Validator.class),
+                transactionManager, entityManager, 1);
+        OrderRequest oversized = new OrderRequest(customerId, List.of(item(cheapProductId, 2L)),
+                "x".repeat(300), new BigDecimal("2.00"));
+
+        BatchResult result = unvalidatedBatchService.createOrders(List.of(
+                order(customerId, "2.00", item(cheapProductId, 2L)),
+                oversized,
+                order(customerId, "2.00", item(cheapProductId, 2L))
+        ).iterator());
+
+        assertThat(result.items()).extracting(BatchItemResult::status).containsExactly(
+                BatchItemStatus.CREATED, BatchItemStatus.FAILED, BatchItemStatus.CREATED);
+        assertThat(result.items().get(1).errors()).containsExactly("Order chunk persistence failed");
+        //the failed chunk's reservation was rolled back with it
+        assertThat(productRepository.findById(cheapProductId).orElseThrow().getQuantityInStock()).isEqualTo(996L);
+    }
+
+    @Test
+    void createOrders_ShouldRejectOrderAndPlaceTheRest_WhenPriceChangesBeforeReservation() {
+
+        Long repricedProductId = productRepository.save(Product.build("Repriced", "Description",
+                new BigDecimal("3.00"), 10L)).getId();
+        TransactionTemplate separateTransaction = new TransactionTemplate(transactionManager);
+        separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicBoolean repriced = new AtomicBoolean();
+
+        //another client commits a new price after the chunk loaded its products
+        StockReservation repricingReservation = new StockReservation() {
+            @Override
+            public List<Long> reserve(Map<Long, Long> quantities) {
+                if(repriced.compareAndSet(false, true)) {
+                    separateTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                            "UPDATE products SET price = 4.00 WHERE id = ?", repricedProductId));
+                }
+                return stockReservation.reserve(quantities);
+            }
+
+            @Override
+            public void release(Map<Long, Long> quantities) {
+                stockReservation.release(quantities);
+            }
+
+            @Override
+            public boolean settlesOnCommit() {
+                return stockReservation.settlesOnCommit();
+            }
+        };
+        OrderBatchService repricingBatchService = new OrderBatchService(orderRepository, customerRepository,
+                productRepository, orderMapper, repricingReservation, orderTotalCalculator, validator,
+                transactionManager, entityManager, 200);
+
+        BatchResult result = repricingBatchService.createOrders(List.of(
+                order(customerId, "2.00", item(cheapProductId, 2L)),
+                order(customerId, "3.00", item(repricedProductId, 1L)),
+                order(customerId, "2.00", item(cheapProductId, 2L))
+        ).iterator());
+
+        assertThat(result.items()).extracting(BatchItemResult::status).containsExactly(
+                BatchItemStatus.CREATED, BatchItemStatus.INVALID, BatchItemStatus.CREATED);
+        assertThat(result.items().get(1).errors())
+                .containsExactly("Price of product " + repricedProductId + " changed while the order was placed");
+        //reservations of the rolled back attempt were undone
+        assertThat(productRepository.findById(cheapProductId).orElseThrow().getQuantityInStock()).isEqualTo(996L);
+        assertThat(productRepository.findById(repricedProductId).orElseThrow().getQuantityInStock()).isEqualTo(10L);
+    }
+
+    @Test
+    void createOrders_ShouldRejectShippingAddressLongerThanItsColumn() {
+
+        OrderRequest oversized = new OrderRequest(customerId, List.of(item(cheapProductId, 2L)),
+                "x".repeat(256), new BigDecimal("2.00"));
+
+        BatchResult result = orderBatchService.createOrders(List.of(oversized).iterator());
+
+        assertThat(result.items().get(0).status()).isEqualTo(BatchItemStatus.INVALID);
+        assertThat(result.items().get(0).errors())
+                .containsExactly("Order request: shipping address is longer than 255 characters");
+    }
+
+    @Test
+    void createOrders_ShouldEndBatchAndKeepResults_WhenBodyIsMalformed() throws Exception {
+
+        String line = objectMapper.writeValueAsString(order(customerId, "2.00", item(cheapProductId, 2L)));
+        Iterator<OrderRequest> requests = objectMapper.readerFor(OrderRequest.class)
+                .readValues(line + "\n{\"customerId\": oops\n" + line + "\n");
+
+        BatchResult result = orderBatchService.createOrders(requests);
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.items()).extracting(BatchItemResult::status)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.INVALID);
+        assertThat(result.items().get(1).errors())
+                .containsExactly("Order request cannot be read, the rest of the batch was skipped");
+        assertThat(productRepository.findById(cheapProductId).orElseThrow().getQuantityInStock()).isEqualTo(998L);
+    }
+
+    private OrderRequest order(Long customerId, String totalPrice, OrderItemRequest... items) {
+        return new OrderRequest(customerId, List.of(items), "Batch Street 1", new BigDecimal(totalPrice));
+    }
+
+    private OrderItemRequest item(Long productId, Long quantity) {
+        return new OrderItemRequest(productId, quantity);
+    }
+}
@@ -0,0 +1,131 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.common.OrderIntakeStatus;
+import com.jefferson.mvc_object_mapper.common.OrderStatus;
+import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderIntakeDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.exception.InsufficientStockException;
+import com.jefferson.mvc_object_mapper.exception.OrderIntakeFullException;
+import com.jefferson.mvc_object_mapper.exception.OrderNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderIntakeTest {
+
+    private OrderIntake orderIntake;
+    private MeterRegistry meterRegistry;
+
+    @Mock
+    private OrderService orderService;
+
+    private final OrderRequest orderRequest = new OrderRequest(1L, List.of(new OrderItemRequest(1L, 1L)),
+            "Intake Street 1", new BigDecimal("5.00"));
+
+    @BeforeEach
+    void initTests() {
+        meterRegistry = new SimpleMeterRegistry();
+        //one worker and one queue slot
+        orderIntake = new OrderIntake(orderService, meterRegistry, 1, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        orderIntake.stop();
+    }
+
+    @Test
+    void submit_ShouldReturnProcessingAndPlaceOrderInBackground() throws Exception {
+
+        OrderDto orderDto = new OrderDto(42L, 1L, List.of(), LocalDateTime.now(), "Intake Street 1",
+                new BigDecimal("5.00"), OrderStatus.PROCESSING);
+        when(orderService.createNewOrder(orderRequest)).thenReturn(orderDto);
+
+        OrderIntakeDto accepted = orderIntake.submit(orderRequest);
+        OrderIntakeDto placed = awaitCompletion(accepted.token());
+
+        assertThat(accepted.status()).isEqualTo(OrderIntakeStatus.PROCESSING);
+        assertThat(placed.status()).isEqualTo(OrderIntakeStatus.PLACED);
+        assertThat(placed.orderId()).isEqualTo(42L);
+        assertThat(meterRegistry.get("order.intake.processed").tag("outcome", "placed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void submit_ShouldReportFailure_WhenOrderCannotBePlaced() throws Exception {
+
+        when(orderService.createNewOrder(orderRequest))
+                .thenThrow(new InsufficientStockException("Insufficient stock for products: [1]"));
+
+        OrderIntakeDto failed = awaitCompletion(orderIntake.submit(orderRequest).token());
+
+        assertThat(failed.status()).isEqualTo(OrderIntakeStatus.FAILED);
+        assertThat(failed.error()).isEqualTo("Insufficient stock for products: [1]");
+        assertThat(meterRegistry.get("order.intake.processed").tag("outcome", "failed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void submit_ShouldThrowOrderIntakeFullException_WhenQueueIsFull() throws Exception {
+
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OrderDto orderDto = new OrderDto(43L, 1L, List.of(), LocalDateTime.now(), "Intake Street 1",
+                new BigDecimal("5.00"), OrderStatus.PROCESSING);
+        when(orderService.createNewOrder(orderRequest)).thenAnswer(invocation -> {
+            workerBusy.countDown();
+            release.await();
+            return orderDto;
+        });
+
+        orderIntake.submit(orderRequest);
+        workerBusy.await(5, TimeUnit.SECONDS);
+        orderIntake.submit(orderRequest);
+
+        try {
+            assertThat(meterRegistry.get("order.intake.queue.depth").gauge().value()).isEqualTo(1);
+            assertThatThrownBy(() -> orderIntake.submit(orderRequest))
+                    .isInstanceOf(OrderIntakeFullException.class);
+            assertThat(meterRegistry.get("order.intake.rejected").counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void getStatus_ShouldThrowOrderNotFoundException_WhenTokenUnknown() {
+
+        assertThatThrownBy(() -> orderIntake.getStatus("unknown"))
+                .isInstanceOf(OrderNotFoundException.class)
+                .hasMessage("Order not found for token: unknown");
+    }
+
+    private OrderIntakeDto awaitCompletion(String token) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        OrderIntakeDto status = orderIntake.getStatus(token);
+        while(status.status() == OrderIntakeStatus.PROCESSING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = orderIntake.getStatus(token);
+        }
+        return status;
+    }
+}
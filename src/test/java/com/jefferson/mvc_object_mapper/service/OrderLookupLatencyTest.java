@@ -0,0 +1,106 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Every customer and product select is delayed, like a database a few milliseconds away.
+//Run one after the other the two lookups would cost at least twice the delay
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.jefferson.mvc_object_mapper.service.OrderLookupLatencyTest$DelayingInspector")
+public class OrderLookupLatencyTest {
+
+    private static final long QUERY_DELAY_MS = 50;
+    private static final int ORDERS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private OrderRequest orderRequest;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setFirstName("Latency");
+        customer.setLastName("Test");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        Long customerId = customerRepository.save(customer).getId();
+
+        Long productId = productRepository.save(Product.build("Delayed", "Description",
+                new BigDecimal("5.00"), 1_000L)).getId();
+
+        orderRequest = new OrderRequest(customerId, List.of(new OrderItemRequest(productId, 1L)),
+                "Latency Street 1", new BigDecimal("5.00"));
+    }
+
+    @Test
+    void createNewOrder_ShouldOverlapCustomerAndProductLookups() {
+
+        //warm up
+        orderService.createNewOrder(orderRequest);
+
+        long elapsedNanos = 0;
+        for(int i = 0; i < ORDERS; i++) {
+            //products have to be selected, not served by the second-level cache
+            entityManagerFactory.getCache().evict(Product.class);
+            long startNanos = System.nanoTime();
+            orderService.createNewOrder(orderRequest);
+            elapsedNanos += System.nanoTime() - startNanos;
+        }
+
+        long meanMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos / ORDERS);
+        log.info("{} orders with {} ms per lookup query: mean order latency {} ms, serial lookups alone take {} ms",
+                ORDERS, QUERY_DELAY_MS, meanMillis, 2 * QUERY_DELAY_MS);
+
+        assertThat(meanMillis).isLessThan(2 * QUERY_DELAY_MS);
+    }
+
+    public static class DelayingInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            //entity lookups only, the price check inside the write transaction selects id and price
+            if(sql.startsWith("select") && (sql.contains(" from customers ") || isProductLookup(sql))) {
+                try {
+                    Thread.sleep(QUERY_DELAY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return sql;
+        }
+
+        private static boolean isProductLookup(String sql) {
+            return sql.contains(" from products ") && sql.contains(".name");
+        }
+    }
+}
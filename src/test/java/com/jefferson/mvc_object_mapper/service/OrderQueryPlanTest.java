@@ -0,0 +1,125 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
+import com.jefferson.mvc_object_mapper.dto.OrderRequest;
+import com.jefferson.mvc_object_mapper.model.Customer;
+import com.jefferson.mvc_object_mapper.model.PhoneNumber;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.jefferson.mvc_object_mapper.service.OrderQueryPlanTest$ProductSelectRecorder")
+public class OrderQueryPlanTest {
+
+    private static final int PRODUCTS = 40;
+    private static final int ORDERS = 60;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long customerId;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setFirstName("Plan");
+        customer.setLastName("Cache");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setPhoneNumber(new PhoneNumber("+1234567890"));
+        customerId = customerRepository.save(customer).getId();
+
+        productIds = new ArrayList<>();
+        for(int i = 0; i < PRODUCTS; i++) {
+            productIds.add(productRepository.save(Product.build("Product " + i, "Description",
+                    new BigDecimal("1.00"), 1_000_000L)).getId());
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ProductSelectRecorder.SHAPES.clear();
+    }
+
+    @Test
+    void createNewOrder_ShouldReuseFewStatementShapes_WhenOrdersHaveRandomProductCounts() {
+
+        Random random = new Random(42);
+        Set<Integer> productCounts = new HashSet<>();
+        long elapsedNanos = 0;
+
+        for(int i = 0; i < ORDERS; i++) {
+            List<Long> shuffled = new ArrayList<>(productIds);
+            Collections.shuffle(shuffled, random);
+            int productCount = 1 + random.nextInt(PRODUCTS);
+            productCounts.add(productCount);
+
+            List<OrderItemRequest> items = shuffled.subList(0, productCount).stream()
+                    .map(productId -> new OrderItemRequest(productId, 1L))
+                    .toList();
+            OrderRequest orderRequest = new OrderRequest(customerId, items, "Plan Street 1",
+                    BigDecimal.valueOf(productCount).setScale(2));
+
+            //every product is selected, otherwise the second-level cache hides the IN list
+            entityManagerFactory.getCache().evict(Product.class);
+            long startNanos = System.nanoTime();
+            orderService.createNewOrder(orderRequest);
+            elapsedNanos += System.nanoTime() - startNanos;
+        }
+
+        //products come from multiLoad, which builds SQL without the HQL plan cache. The statement
+        //shapes are what H2 and the driver cache, the plan cache ratio covers the other queries
+        long planHits = statistics.getQueryPlanCacheHitCount();
+        long planMisses = statistics.getQueryPlanCacheMissCount();
+        log.info("{} orders with {} distinct product counts used {} product select shapes, " +
+                        "plan cache hits {} of {}, mean order latency {} us",
+                ORDERS, productCounts.size(), ProductSelectRecorder.SHAPES.size(),
+                planHits, planHits + planMisses, TimeUnit.NANOSECONDS.toMicros(elapsedNanos / ORDERS));
+
+        //without padding there is one shape per distinct count, padded to 1, 2, 4 ... 64 there are at most 7
+        //for the lookup and 7 for the price check in the write transaction
+        assertThat(productCounts.size()).isGreaterThan(7);
+        assertThat(ProductSelectRecorder.SHAPES.stream().filter(sql -> sql.contains(".name"))).hasSizeLessThanOrEqualTo(7);
+        assertThat(ProductSelectRecorder.SHAPES.stream().filter(sql -> !sql.contains(".name"))).hasSizeLessThanOrEqualTo(7);
+    }
+
+    public static class ProductSelectRecorder implements StatementInspector {
+
+        static final Set<String> SHAPES = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String inspect(String sql) {
+            if(sql.contains("from products") && sql.contains(" in (")) {
+                SHAPES.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.jefferson.mvc_object_mapper.service;
 
+import com.jefferson.mvc_object_mapper.common.BatchGetLimits;
+import com.jefferson.mvc_object_mapper.common.KeysetCursor;
 import com.jefferson.mvc_object_mapper.common.OrderStatus;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.OrderDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemDto;
+import com.jefferson.mvc_object_mapper.dto.OrderItemRequest;
 import com.jefferson.mvc_object_mapper.dto.OrderRequest;
-import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.exception.CustomerNotFoundException;
+import com.jefferson.mvc_object_mapper.exception.InsufficientStockException;
+import com.jefferson.mvc_object_mapper.exception.InvalidCursorException;
 import com.jefferson.mvc_object_mapper.exception.OrderNotFoundException;
+import com.jefferson.mvc_object_mapper.exception.OrderTotalMismatchException;
 import com.jefferson.mvc_object_mapper.exception.ProductNotFoundException;
 import com.jefferson.mvc_object_mapper.mapper.OrderMapper;
 import com.jefferson.mvc_object_mapper.model.Customer;
@@ -14,20 +21,31 @@ import com.jefferson.mvc_object_mapper.model.Product;
 import com.jefferson.mvc_object_mapper.repository.CustomerRepository;
 import com.jefferson.mvc_object_mapper.repository.OrderRepository;
 import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -50,10 +68,22 @@ public class OrderServiceTest {
     @Mock
     private OrderMapper orderMapper;
 
+    @Mock
+    private StockReservation stockReservation;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
     @BeforeEach
     void initTests() {
 
-        orderService = new OrderService(orderRepository, customerRepository, productRepository, orderMapper);
+        //lookups run on the calling thread, the transaction templates run against the mock manager
+        orderService = new OrderService(orderRepository, customerRepository, productRepository, orderMapper,
+                stockReservation, new OrderTotalCalculator(), Runnable::run, transactionManager,
+                new TransactionalOrderWriter(transactionManager), entityManager);
 
         var validatorFactory = new LocalValidatorFactoryBean();
         validatorFactory.afterPropertiesSet();
@@ -88,31 +118,189 @@ public class OrderServiceTest {
                 OrderStatus.PROCESSING
         );
 
-        when(orderRepository.findByIdAndOrderStatusNot(orderId, OrderStatus.DELETED))
+        when(orderRepository.findWithItemsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED))
                 .thenReturn(Optional.of(order));
-        when(orderMapper.toDtoWithProducts(order)).thenReturn(expectedDto);
+        when(orderMapper.toDtoWithItems(order)).thenReturn(expectedDto);
 
         OrderDto result = orderService.getOrderById(orderId);
 
         assertNotNull(result);
         assertEquals(expectedDto, result);
-        verify(orderRepository).findByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
-        verify(orderMapper).toDtoWithProducts(order);
+        verify(orderRepository).findWithItemsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+        verify(orderMapper).toDtoWithItems(order);
     }
 
     @Test
     void getOrderById_shouldThrowOrderNotFoundException_whenOrderNotFound() {
 
         Long orderId = 999L;
-        when(orderRepository.findByIdAndOrderStatusNot(orderId, OrderStatus.DELETED))
+        when(orderRepository.findWithItemsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED))
                 .thenReturn(Optional.empty());
 
         OrderNotFoundException exception = assertThrows(OrderNotFoundException.class,
                 () -> orderService.getOrderById(orderId));
 
         assertEquals("Order not found for id: " + orderId, exception.getMessage());
-        verify(orderRepository).findByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
-        verify(orderMapper, never()).toDtoWithProducts(any());
+        verify(orderRepository).findWithItemsByIdAndOrderStatusNot(orderId, OrderStatus.DELETED);
+        verify(orderMapper, never()).toDtoWithItems(any());
+    }
+
+    @Test
+    void getOrderVersionTag_shouldReturnTag_whenOrderExists() {
+
+        when(orderRepository.findVersionTagPartsByIdAndOrderStatusNot(1L, OrderStatus.DELETED))
+                .thenReturn(List.of(versionTagPart(2L, "Product 1"), versionTagPart(2L, null)));
+
+        String tag = orderService.getOrderVersionTag(1L);
+
+        assertEquals("2." + Integer.toHexString(Arrays.asList("Product 1", null).hashCode()), tag);
+        verify(orderRepository, never()).findWithItemsByIdAndOrderStatusNot(any(), any());
+        verifyNoInteractions(orderMapper);
+    }
+
+    @Test
+    void getOrderVersionTag_shouldChange_whenShownProductNameChanges() {
+
+        when(orderRepository.findVersionTagPartsByIdAndOrderStatusNot(1L, OrderStatus.DELETED))
+                .thenReturn(List.of(versionTagPart(2L, "Product 1")))
+                .thenReturn(List.of(versionTagPart(2L, "Renamed")));
+
+        assertNotEquals(orderService.getOrderVersionTag(1L), orderService.getOrderVersionTag(1L));
+    }
+
+    @Test
+    void getOrderVersionTag_shouldThrowOrderNotFoundException_whenOrderNotFound() {
+
+        when(orderRepository.findVersionTagPartsByIdAndOrderStatusNot(999L, OrderStatus.DELETED))
+                .thenReturn(List.of());
+
+        OrderNotFoundException exception = assertThrows(OrderNotFoundException.class,
+                () -> orderService.getOrderVersionTag(999L));
+
+        assertEquals("Order not found for id: 999", exception.getMessage());
+    }
+
+    @Test
+    void forEachOrderChunk_shouldLoadChunksInRequestOrderSkippingMissingOrders() {
+
+        //250 distinct ids after dropping the repeated one, every third order is missing or deleted
+        List<Long> orderIds = new ArrayList<>();
+        for(long id = 250; id >= 1; id--) {
+            orderIds.add(id);
+        }
+        orderIds.add(250L);
+
+        when(orderRepository.findWithItemsByIdInAndOrderStatusNot(anyList(), eq(OrderStatus.DELETED)))
+                .thenAnswer(invocation -> {
+                    List<Long> ids = invocation.getArgument(0);
+                    return ids.stream().filter(id -> id % 3 != 0).map(id -> {
+                        Order order = new Order();
+                        order.setId(id);
+                        return order;
+                    }).toList();
+                });
+        when(orderMapper.toDtoWithItems(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            return new OrderDto(order.getId(), 1L, List.of(), null, "Address", BigDecimal.ONE,
+                    OrderStatus.PROCESSING);
+        });
+
+        List<List<OrderDto>> chunks = new ArrayList<>();
+        orderService.forEachOrderChunk(orderIds, chunks::add);
+
+        assertEquals(3, chunks.size());
+        verify(orderRepository, times(3)).findWithItemsByIdInAndOrderStatusNot(anyList(), eq(OrderStatus.DELETED));
+        verify(entityManager, times(3)).clear();
+        List<Long> returnedIds = chunks.stream().flatMap(List::stream).map(OrderDto::id).toList();
+        List<Long> expectedIds = orderIds.stream().distinct().filter(id -> id % 3 != 0).toList();
+        assertEquals(expectedIds, returnedIds);
+    }
+
+    @Test
+    void forEachOrderChunk_shouldThrowConstraintViolationException_whenTooManyIds() {
+
+        List<Long> orderIds = new ArrayList<>();
+        for(long id = 1; id <= BatchGetLimits.MAX_IDS + 1; id++) {
+            orderIds.add(id);
+        }
+
+        ConstraintViolationException exception = assertThrows(ConstraintViolationException.class,
+                () -> orderService.forEachOrderChunk(orderIds, chunk -> {}));
+
+        assertTrue(exception.getMessage().contains("At most 1000 order ids per request"));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getCustomerOrders_shouldMapWithoutItemsAndIssueNextCursor_whenMoreOrdersExist() {
+
+        Order order = new Order();
+        order.setId(7L);
+        ReflectionTestUtils.setField(order, "orderDate", LocalDateTime.of(2024, 1, 15, 10, 30));
+        OrderDto orderDto = new OrderDto(7L, 1L, null, order.getOrderDate(), "Address",
+                BigDecimal.TEN, OrderStatus.PROCESSING);
+
+        when(customerRepository.existsByIdAndDeletedFalse(1L)).thenReturn(true);
+        when(orderRepository.findByCustomerIdAndOrderStatusNot(eq(1L), eq(OrderStatus.DELETED),
+                any(ScrollPosition.class), any(Sort.class), eq(Limit.of(1))))
+                .thenReturn(Window.from(List.of(order), ScrollPosition::offset, true));
+        when(orderMapper.toDtoWithoutItems(order)).thenReturn(orderDto);
+
+        CursorPage<OrderDto> result = orderService.getCustomerOrders(1L, null, 1, false);
+
+        assertEquals(List.of(orderDto), result.content());
+        assertTrue(result.hasNext());
+        assertEquals(new KeysetCursor("orderDate", "2024-01-15T10:30", 7L),
+                KeysetCursor.decode(result.nextCursor()));
+        verify(orderRepository, never()).findWithItemsByIdIn(any());
+    }
+
+    @Test
+    void getCustomerOrders_shouldFetchItemsOfThePageAtOnce_whenItemsRequested() {
+
+        Order order = new Order();
+        order.setId(7L);
+        ReflectionTestUtils.setField(order, "orderDate", LocalDateTime.of(2024, 1, 15, 10, 30));
+        OrderDto orderDto = new OrderDto(7L, 1L, List.of(), order.getOrderDate(), "Address",
+                BigDecimal.TEN, OrderStatus.PROCESSING);
+        String cursor = new KeysetCursor("orderDate", "2024-01-16T10:30", 9L).encode();
+
+        when(customerRepository.existsByIdAndDeletedFalse(1L)).thenReturn(true);
+        when(orderRepository.findByCustomerIdAndOrderStatusNot(eq(1L), eq(OrderStatus.DELETED),
+                eq(ScrollPosition.forward(Map.of("orderDate", LocalDateTime.of(2024, 1, 16, 10, 30), "id", 9L))),
+                any(Sort.class), eq(Limit.of(10))))
+                .thenReturn(Window.from(List.of(order), ScrollPosition::offset, false));
+        when(orderMapper.toDtoWithItems(order)).thenReturn(orderDto);
+
+        CursorPage<OrderDto> result = orderService.getCustomerOrders(1L, cursor, 10, true);
+
+        assertEquals(List.of(orderDto), result.content());
+        assertFalse(result.hasNext());
+        assertNull(result.nextCursor());
+        verify(orderRepository).findWithItemsByIdIn(List.of(7L));
+    }
+
+    @Test
+    void getCustomerOrders_shouldThrowCustomerNotFoundException_whenCustomerNotFound() {
+
+        when(customerRepository.existsByIdAndDeletedFalse(999L)).thenReturn(false);
+
+        CustomerNotFoundException exception = assertThrows(CustomerNotFoundException.class,
+                () -> orderService.getCustomerOrders(999L, null, 10, false));
+
+        assertEquals("Customer not found for id: 999", exception.getMessage());
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getCustomerOrders_shouldThrowInvalidCursorException_whenCursorIssuedForOtherSortKey() {
+
+        String cursor = new KeysetCursor("name", "Apple", 3L).encode();
+        when(customerRepository.existsByIdAndDeletedFalse(1L)).thenReturn(true);
+
+        assertThrows(InvalidCursorException.class,
+                () -> orderService.getCustomerOrders(1L, cursor, 10, false));
+        verifyNoInteractions(orderRepository);
     }
 
     @Test
@@ -121,8 +309,8 @@ public class OrderServiceTest {
                 () -> orderService.getOrderById(null));
 
         assertTrue(exception.getMessage().contains("Order id mustn't be null"));
-        verify(orderRepository, never()).findByIdAndOrderStatusNot(any(), any());
-        verify(orderMapper, never()).toDtoWithProducts(any());
+        verify(orderRepository, never()).findWithItemsByIdAndOrderStatusNot(any(), any());
+        verify(orderMapper, never()).toDtoWithItems(any());
     }
 
     @Test
@@ -131,26 +319,20 @@ public class OrderServiceTest {
                 () -> orderService.getOrderById(0L));
 
         assertTrue(exception.getMessage().contains("Order id must be positive"));
-        verify(orderRepository, never()).findByIdAndOrderStatusNot(any(), any());
-        verify(orderMapper, never()).toDtoWithProducts(any());
+        verify(orderRepository, never()).findWithItemsByIdAndOrderStatusNot(any(), any());
+        verify(orderMapper, never()).toDtoWithItems(any());
     }
 
     @Test
     void createNewOrder_shouldCreateOrderSuccessfully_whenValidRequest() {
 
         Long customerId = 1L;
-        List<ProductDto> productDtos = List.of(
-                new ProductDto(1L, "Product1", "Description1",
-                        BigDecimal.valueOf(50.0), 10L, null),
-                new ProductDto(2L, "Product2", "Description2",
-                        BigDecimal.valueOf(30.0), 5L, null)
-        );
-
+        //repeated product id is merged into one item
         OrderRequest orderRequest = new OrderRequest(
                 customerId,
-                productDtos,
+                List.of(new OrderItemRequest(1L, 1L), new OrderItemRequest(2L, 2L), new OrderItemRequest(1L, 1L)),
                 "Test Address",
-                BigDecimal.valueOf(80.0)
+                BigDecimal.valueOf(160.0)
         );
 
         Customer customer = new Customer();
@@ -159,9 +341,9 @@ public class OrderServiceTest {
 
         List<Product> products = List.of(
                 new Product(1L, "Product1", "Description1",
-                        BigDecimal.valueOf(50.0), 10L, false, LocalDateTime.now()),
+                        BigDecimal.valueOf(50.0), 10L, false, LocalDateTime.now(), 0L),
                 new Product(2L, "Product2", "Description2",
-                        BigDecimal.valueOf(30.0), 5L, false, LocalDateTime.now())
+                        BigDecimal.valueOf(30.0), 5L, false, LocalDateTime.now(), 0L)
         );
 
         Order orderEntity = new Order();
@@ -176,12 +358,13 @@ public class OrderServiceTest {
         savedOrder.setShippingAddress("Test Address");
         savedOrder.setTotalPrice(BigDecimal.valueOf(80.0));
         savedOrder.setOrderStatus(OrderStatus.PROCESSING);
-        products.forEach(savedOrder::addProduct);
+        products.forEach(product -> savedOrder.addItem(product, 2L));
 
         OrderDto expectedDto = new OrderDto(
                 1L,
                 customerId,
-                productDtos,
+                List.of(new OrderItemDto(1L, "Product1", 2L, BigDecimal.valueOf(50.0)),
+                        new OrderItemDto(2L, "Product2", 2L, BigDecimal.valueOf(30.0))),
                 savedOrder.getOrderDate(),
                 "Test Address",
                 BigDecimal.valueOf(80.0),
@@ -190,21 +373,139 @@ public class OrderServiceTest {
 
         when(customerRepository.findByIdAndDeletedFalse(customerId)).thenReturn(Optional.of(customer));
         when(productRepository.findAllByIdAndDeletedFalse(List.of(1L, 2L))).thenReturn(products);
+        when(productRepository.findPricesByIdInAndDeletedFalse(List.of(1L, 2L))).thenReturn(pricesOf(products));
         when(orderMapper.toEntity(orderRequest)).thenReturn(orderEntity);
+        when(stockReservation.settlesOnCommit()).thenReturn(false);
         when(orderRepository.save(orderEntity)).thenReturn(savedOrder);
-        when(orderMapper.toDtoWithProducts(savedOrder)).thenReturn(expectedDto);
+        when(orderMapper.toDtoWithItems(savedOrder)).thenReturn(expectedDto);
 
         OrderDto result = orderService.createNewOrder(orderRequest);
 
         assertNotNull(result);
         assertEquals(expectedDto, result);
         verify(customerRepository).findByIdAndDeletedFalse(customerId);
+        verify(stockReservation).reserve(Map.of(1L, 2L, 2L, 2L));
         verify(productRepository).findAllByIdAndDeletedFalse(List.of(1L, 2L));
         verify(orderMapper).toEntity(orderRequest);
         verify(orderRepository).save(orderEntity);
-        verify(orderMapper).toDtoWithProducts(savedOrder);
+        verify(orderMapper).toDtoWithItems(savedOrder);
+
+        assertEquals(2, orderEntity.getItems().size());
+        assertEquals(2L, orderEntity.getItems().get(0).getQuantity());
+        assertEquals(BigDecimal.valueOf(50.0), orderEntity.getItems().get(0).getUnitPrice());
+        assertEquals(new BigDecimal("160.00"), orderEntity.getTotalPrice());
+        assertFalse(orderEntity.isStockSettled());
+
+        //both lookups in read-only transactions, then the write one
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(3)).getTransaction(definitions.capture());
+        assertEquals(List.of(true, true, false),
+                definitions.getAllValues().stream().map(TransactionDefinition::isReadOnly).toList());
+    }
 
-        assertEquals(2, orderEntity.getProducts().size());
+    @Test
+    void createNewOrder_shouldThrowInsufficientStockException_whenStockNotReserved() {
+
+        Long customerId = 1L;
+        OrderRequest orderRequest = new OrderRequest(
+                customerId,
+                List.of(new OrderItemRequest(1L, 1L)),
+                "Test Address",
+                BigDecimal.valueOf(50.0)
+        );
+
+        Customer customer = new Customer();
+        customer.setId(customerId);
+
+        List<Product> products = List.of(
+                new Product(1L, "Product1", "Description1",
+                        BigDecimal.valueOf(50.0), 0L, false, LocalDateTime.now(), 0L)
+        );
+
+        when(customerRepository.findByIdAndDeletedFalse(customerId)).thenReturn(Optional.of(customer));
+        when(stockReservation.reserve(Map.of(1L, 1L))).thenReturn(List.of(1L));
+        when(productRepository.findAllByIdAndDeletedFalse(List.of(1L))).thenReturn(products);
+        when(productRepository.findPricesByIdInAndDeletedFalse(List.of(1L))).thenReturn(pricesOf(products));
+
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> orderService.createNewOrder(orderRequest));
+
+        assertEquals("Insufficient stock for products: [1]", exception.getMessage());
+        verify(orderRepository, never()).save(any());
+        verify(stockReservation, never()).release(any());
+    }
+
+    @Test
+    void createNewOrder_shouldThrowOrderTotalMismatchException_whenPriceChangedAfterLookup() {
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+        OrderRequest orderRequest = new OrderRequest(1L, List.of(new OrderItemRequest(1L, 1L)),
+                "Test Address", BigDecimal.valueOf(50.0));
+        Product product = new Product(1L, "Product1", "Description1",
+                BigDecimal.valueOf(50.0), 5L, false, LocalDateTime.now(), 0L);
+        Product repriced = new Product(1L, "Product1", "Description1",
+                BigDecimal.valueOf(55.0), 5L, false, LocalDateTime.now(), 1L);
+
+        when(customerRepository.findByIdAndDeletedFalse(1L)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllByIdAndDeletedFalse(List.of(1L))).thenReturn(List.of(product));
+        when(productRepository.findPricesByIdInAndDeletedFalse(List.of(1L))).thenReturn(pricesOf(List.of(repriced)));
+
+        OrderTotalMismatchException exception = assertThrows(OrderTotalMismatchException.class,
+                () -> orderService.createNewOrder(orderRequest));
+
+        assertEquals("Price of product 1 changed while the order was placed", exception.getMessage());
+        verify(orderRepository, never()).save(any());
+        verify(stockReservation).release(Map.of(1L, 1L));
+    }
+
+    @Test
+    void createNewOrder_shouldThrowProductNotFoundException_whenProductDeletedAfterLookup() {
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+        OrderRequest orderRequest = new OrderRequest(1L, List.of(new OrderItemRequest(1L, 1L)),
+                "Test Address", BigDecimal.valueOf(50.0));
+        Product product = new Product(1L, "Product1", "Description1",
+                BigDecimal.valueOf(50.0), 5L, false, LocalDateTime.now(), 0L);
+
+        when(customerRepository.findByIdAndDeletedFalse(1L)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllByIdAndDeletedFalse(List.of(1L))).thenReturn(List.of(product));
+        //the reserving update skips deleted rows, the order isn't reported as out of stock
+        when(stockReservation.reserve(Map.of(1L, 1L))).thenReturn(List.of(1L));
+        when(productRepository.findPricesByIdInAndDeletedFalse(List.of(1L))).thenReturn(List.of());
+
+        assertThrows(ProductNotFoundException.class, () -> orderService.createNewOrder(orderRequest));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void createNewOrder_shouldThrowOrderTotalMismatchException_whenClientTotalDiffers() {
+
+        Long customerId = 1L;
+        OrderRequest orderRequest = new OrderRequest(
+                customerId,
+                List.of(new OrderItemRequest(1L, 1L)),
+                "Test Address",
+                new BigDecimal("0.01")
+        );
+
+        Customer customer = new Customer();
+        customer.setId(customerId);
+
+        List<Product> products = List.of(
+                new Product(1L, "Product1", "Description1",
+                        new BigDecimal("50.00"), 10L, false, LocalDateTime.now(), 0L)
+        );
+
+        when(customerRepository.findByIdAndDeletedFalse(customerId)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllByIdAndDeletedFalse(List.of(1L))).thenReturn(products);
+
+        OrderTotalMismatchException exception = assertThrows(OrderTotalMismatchException.class,
+                () -> orderService.createNewOrder(orderRequest));
+
+        assertEquals("Order total 0.01 doesn't match computed total 50.00", exception.getMessage());
+        verify(orderRepository, never()).save(any());
     }
 
     @Test
@@ -225,7 +526,7 @@ public class OrderServiceTest {
 
         assertEquals("Customer not found for id: " + customerId, exception.getMessage());
         verify(customerRepository).findByIdAndDeletedFalse(customerId);
-        verify(productRepository, never()).findAllByIdAndDeletedFalse(any());
+        verify(stockReservation, never()).reserve(any());
         verify(orderRepository, never()).save(any());
     }
 
@@ -233,16 +534,9 @@ public class OrderServiceTest {
     void createNewOrder_shouldThrowProductNotFoundException_whenProductNotFound() {
 
         Long customerId = 1L;
-        List<ProductDto> productDtos = List.of(
-                new ProductDto(1L, "Product1", "Description1",
-                        BigDecimal.valueOf(50.0), 10L, null),
-                new ProductDto(999L, "NonExistent", "Description",
-                        BigDecimal.valueOf(30.0), 5L, null)
-        );
-
         OrderRequest orderRequest = new OrderRequest(
                 customerId,
-                productDtos,
+                List.of(new OrderItemRequest(1L, 1L), new OrderItemRequest(999L, 1L)),
                 "Test Address",
                 BigDecimal.valueOf(80.0)
         );
@@ -253,7 +547,7 @@ public class OrderServiceTest {
 
         List<Product> foundProducts = List.of(
                 new Product(1L, "Product1", "Description1",
-                        BigDecimal.valueOf(50.0), 10L, false, LocalDateTime.now())
+                        BigDecimal.valueOf(50.0), 10L, false, LocalDateTime.now(), 0L)
         );
 
         when(customerRepository.findByIdAndDeletedFalse(customerId)).thenReturn(Optional.of(customer));
@@ -300,7 +594,7 @@ public class OrderServiceTest {
     }
 
     @Test
-    void createNewOrder_shouldThrowConstraintViolationException_whenOrderRequestHasInvalidProducts() {
+    void createNewOrder_shouldThrowConstraintViolationException_whenOrderRequestHasInvalidItems() {
 
         OrderRequest invalidRequest = new OrderRequest(
                 1L,
@@ -312,7 +606,7 @@ public class OrderServiceTest {
         ConstraintViolationException exception = assertThrows(ConstraintViolationException.class,
                 () -> orderService.createNewOrder(invalidRequest));
 
-        assertTrue(exception.getMessage().contains("products mustn't be null"));
+        assertTrue(exception.getMessage().contains("items mustn't be null"));
         verify(customerRepository, never()).findByIdAndDeletedFalse(any());
         verify(productRepository, never()).findAllByIdAndDeletedFalse(any());
         verify(orderRepository, never()).save(any());
@@ -370,4 +664,34 @@ public class OrderServiceTest {
         verify(orderRepository, never()).findByIdAndOrderStatusNot(any(), any());
         verify(orderRepository, never()).save(any());
     }
+
+    private List<ProductRepository.ProductPrice> pricesOf(List<Product> products) {
+        return products.stream()
+                .map(product -> (ProductRepository.ProductPrice) new ProductRepository.ProductPrice() {
+                    @Override
+                    public Long getId() {
+                        return product.getId();
+                    }
+
+                    @Override
+                    public BigDecimal getPrice() {
+                        return product.getPrice();
+                    }
+                })
+                .toList();
+    }
+
+    private OrderRepository.VersionTagPart versionTagPart(Long version, String productName) {
+        return new OrderRepository.VersionTagPart() {
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+
+            @Override
+            public String getProductName() {
+                return productName;
+            }
+        };
+    }
 }
@@ -0,0 +1,89 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.Measurements;
+import com.jefferson.mvc_object_mapper.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+public class OrderTotalCalculatorTest {
+
+    private final OrderTotalCalculator orderTotalCalculator = new OrderTotalCalculator();
+
+    @Test
+    void total_ShouldSumPriceTimesQuantityInCents() {
+
+        List<Product> products = List.of(product(1L, "19.99"), product(2L, "0.1"), product(3L, "5"));
+        Map<Long, Long> quantities = Map.of(1L, 3L, 2L, 7L, 3L, 1L);
+
+        BigDecimal total = orderTotalCalculator.total(products, quantities);
+
+        assertThat(total).isEqualTo(new BigDecimal("65.67"));
+        assertThat(total).isEqualTo(orderTotalCalculator.exactTotal(products, quantities));
+    }
+
+    @Test
+    void total_ShouldFallBackToBigDecimal_WhenPriceHasMoreThanTwoFractionDigits() {
+
+        List<Product> products = List.of(product(1L, "0.125"), product(2L, "1.00"));
+
+        BigDecimal total = orderTotalCalculator.total(products, Map.of(1L, 3L, 2L, 1L));
+
+        assertThat(total).isEqualByComparingTo("1.375");
+    }
+
+    @Test
+    void total_ShouldFallBackToBigDecimal_WhenCentsOverflowLong() {
+
+        List<Product> products = List.of(product(1L, "92233720368547758.07"), product(2L, "0.01"));
+
+        BigDecimal total = orderTotalCalculator.total(products, Map.of(1L, 2L, 2L, 1L));
+
+        assertThat(total).isEqualTo(new BigDecimal("184467440737095516.15"));
+    }
+
+    @Test
+    void total_ShouldBeZero_WhenThereAreNoProducts() {
+
+        assertThat(orderTotalCalculator.total(List.of(), Map.of())).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    //Timings are only logged, they aren't stable enough to assert on without a benchmark harness.
+    //The BigDecimal path allocates per item, the cents path doesn't
+    @Test
+    void total_ShouldLogCentsPathAgainstBigDecimalPath() throws Exception {
+
+        List<Product> products = new ArrayList<>();
+        Map<Long, Long> quantities = new HashMap<>();
+        for(long id = 1; id <= 20; id++) {
+            products.add(product(id, id + ".99"));
+            quantities.put(id, id);
+        }
+
+        Measurements.Action cents = () -> orderTotalCalculator.total(products, quantities);
+        Measurements.Action exact = () -> orderTotalCalculator.exactTotal(products, quantities);
+        long[] nanos = Measurements.fastestNanosPerCall(5, 20_000, cents, exact);
+        long centsBytes = Measurements.bytesPerCall(20_000, cents);
+        long exactBytes = Measurements.bytesPerCall(20_000, exact);
+
+        log.info("20 item order total: cents {} ns / {} bytes per call, BigDecimal {} ns / {} bytes",
+                nanos[0], centsBytes, nanos[1], exactBytes);
+        assertThat(orderTotalCalculator.total(products, quantities))
+                .isEqualTo(orderTotalCalculator.exactTotal(products, quantities));
+        assertThat(centsBytes).isLessThan(exactBytes);
+    }
+
+    private Product product(Long id, String price) {
+        Product product = Product.build("Product " + id, "Description", new BigDecimal(price), 10L);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.mapper.ProductMapper;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+//Chunks failing in the database itself, not in a mock
+@SpringBootTest
+public class ProductBatchPersistenceTest {
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void createProducts_ShouldMarkOnlyTheChunkFailingOnFlush() {
+
+        //a validator that lets everything through, the oversized name only fails on insert
+        ProductBatchService unvalidatedBatchService = new ProductBatchService(productRepository, productMapper,
+                mock(Validator.class), transactionManager, entityManager, 1);
+
+        BatchResult result = unvalidatedBatchService.createProducts(List.of(
+                request("Flush A"), request("x".repeat(300)), request("Flush C")
+        ).iterator());
+
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.items())
+                .extracting(BatchItemResult::status)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.FAILED, BatchItemStatus.CREATED);
+        assertThat(result.items().get(1).errors()).containsExactly("Product chunk persistence failed");
+        assertThat(productRepository.findById(result.items().get(0).id())).isPresent();
+        assertThat(productRepository.findById(result.items().get(2).id())).isPresent();
+    }
+
+    @Test
+    void createProducts_ShouldRejectNameLongerThanItsColumn() {
+
+        BatchResult result = productBatchService.createProducts(List.of(request("x".repeat(256))).iterator());
+
+        assertThat(result.items().get(0).status()).isEqualTo(BatchItemStatus.INVALID);
+        assertThat(result.items().get(0).errors())
+                .containsExactly("Product request: product name is longer than 255 characters");
+    }
+
+    private ProductRequest request(String name) {
+        return new ProductRequest(name, "Description", new BigDecimal("10.00"), 5L);
+    }
+}
@@ -0,0 +1,194 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.mvc_object_mapper.common.BatchItemStatus;
+import com.jefferson.mvc_object_mapper.dto.BatchItemResult;
+import com.jefferson.mvc_object_mapper.dto.BatchResult;
+import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.mapper.ProductMapper;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductBatchServiceTest {
+
+    private ProductBatchService productBatchService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void initTests() {
+
+        var validatorFactory = new LocalValidatorFactoryBean();
+        validatorFactory.afterPropertiesSet();
+
+        productBatchService = new ProductBatchService(productRepository, productMapper,
+                validatorFactory.getValidator(), transactionManager, entityManager, 2);
+    }
+
+    @Test
+    void createProducts_ShouldPersistValidItemsInChunks() {
+
+        stubMapper();
+        stubSaveAll();
+
+        BatchResult result = productBatchService.createProducts(List.of(
+                validRequest("A"), validRequest("B"), validRequest("C"), validRequest("D"), validRequest("E")
+        ).iterator());
+
+        assertThat(result.created()).isEqualTo(5);
+        assertThat(result.rejected()).isZero();
+        assertThat(result.items())
+                .extracting(BatchItemResult::index)
+                .containsExactly(0, 1, 2, 3, 4);
+        assertThat(result.items())
+                .extracting(BatchItemResult::id)
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+
+        //chunk size is 2: [A, B], [C, D], [E]
+        verify(productRepository, times(3)).saveAll(anyIterable());
+        verify(transactionManager, times(3)).commit(any());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void createProducts_ShouldReportInvalidItemsWithTheirIndex() {
+
+        stubMapper();
+        stubSaveAll();
+
+        ProductRequest invalidRequest = new ProductRequest("", "Description", new BigDecimal("-1"), null);
+
+        BatchResult result = productBatchService.createProducts(List.of(
+                validRequest("A"), invalidRequest, validRequest("C")
+        ).iterator());
+
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(1);
+
+        BatchItemResult invalidItem = result.items().get(1);
+        assertThat(invalidItem.index()).isEqualTo(1);
+        assertThat(invalidItem.status()).isEqualTo(BatchItemStatus.INVALID);
+        assertThat(invalidItem.id()).isNull();
+        assertThat(invalidItem.errors()).containsExactlyInAnyOrder(
+                "Product request: product name is null or empty",
+                "Product request: price must be positive",
+                "Product request: quantity in stock mustn't be null");
+
+        assertThat(result.items().get(0).status()).isEqualTo(BatchItemStatus.CREATED);
+        assertThat(result.items().get(2).status()).isEqualTo(BatchItemStatus.CREATED);
+        verify(productMapper, never()).toEntity(invalidRequest);
+    }
+
+    @Test
+    void createProducts_ShouldSkipUnreadableItemAndContinue() throws Exception {
+
+        stubMapper();
+        stubSaveAll();
+
+        String body = """
+                {"name":"A","description":"D","price":1.00,"quantityInStock":1}
+                {"name":"B","description":"D","price":"not a number","quantityInStock":1}
+                {"name":"C","description":"D","price":3.00,"quantityInStock":1}
+                """;
+        Iterator<ProductRequest> requests = new ObjectMapper()
+                .readerFor(ProductRequest.class)
+                .readValues(body);
+
+        BatchResult result = productBatchService.createProducts(requests);
+
+        assertThat(result.items())
+                .extracting(BatchItemResult::status)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.INVALID, BatchItemStatus.CREATED);
+        assertThat(result.items().get(1).errors()).containsExactly("Product request cannot be read");
+    }
+
+    @Test
+    void createProducts_ShouldEndBatchAndKeepResults_WhenBodyIsMalformed() throws Exception {
+
+        stubMapper();
+        stubSaveAll();
+
+        String body = """
+                {"name":"A","description":"D","price":1.00,"quantityInStock":1}
+                {"name":"B","description":"D","price":2.00,"quantityInStock":1}
+                {"name":"C", oops
+                {"name":"D","description":"D","price":4.00,"quantityInStock":1}
+                """;
+        Iterator<ProductRequest> requests = new ObjectMapper()
+                .readerFor(ProductRequest.class)
+                .readValues(body);
+
+        BatchResult result = productBatchService.createProducts(requests);
+
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.items())
+                .extracting(BatchItemResult::status)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.CREATED, BatchItemStatus.INVALID);
+        assertThat(result.items().get(2).errors())
+                .containsExactly("Product request cannot be read, the rest of the batch was skipped");
+    }
+
+    @Test
+    void createProducts_ShouldReturnEmptyResult_WhenNoItems() {
+
+        BatchResult result = productBatchService.createProducts(List.<ProductRequest>of().iterator());
+
+        assertThat(result.created()).isZero();
+        assertThat(result.rejected()).isZero();
+        assertThat(result.items()).isEmpty();
+        verifyNoInteractions(productRepository, transactionManager);
+    }
+
+    private ProductRequest validRequest(String name) {
+        return new ProductRequest(name, "Description", new BigDecimal("10.00"), 5L);
+    }
+
+    private void stubMapper() {
+        when(productMapper.toEntity(any(ProductRequest.class))).thenAnswer(invocation -> {
+            ProductRequest request = invocation.getArgument(0);
+            return Product.build(request.name(), request.description(), request.price(), request.quantityInStock());
+        });
+    }
+
+    private void stubSaveAll() {
+        when(productRepository.saveAll(anyIterable()))
+                .thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+    }
+
+    private Iterable<Product> assignIds(Iterable<Product> products) {
+        products.forEach(product -> product.setId(ids.incrementAndGet()));
+        return products;
+    }
+}
@@ -0,0 +1,150 @@
+package com.jefferson.mvc_object_mapper.service;
+
+import com.jefferson.mvc_object_mapper.common.CacheNames;
+import com.jefferson.mvc_object_mapper.dto.ProductDto;
+import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.exception.ProductNotFoundException;
+import com.jefferson.mvc_object_mapper.model.Product;
+import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class ProductCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = productRepository.save(Product.build("Cached", "Description",
+                new BigDecimal("10.00"), 5L)).getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getProductById_ShouldBeServedFromSecondLevelCache() {
+
+        productService.getProductById(productId);
+        productService.getProductById(productId);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "products")
+                .tag("result", "hit")
+                .functionCounter()
+                .count()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void findAllByIdAndDeletedFalse_ShouldLoadCachedProductsWithoutQuery() {
+
+        Long otherProductId = productRepository.save(Product.build("Other", "Description",
+                new BigDecimal("20.00"), 5L)).getId();
+        statistics.clear();
+
+        List<Product> products = productRepository.findAllByIdAndDeletedFalse(
+                List.of(productId, otherProductId, productId));
+
+        assertThat(products).extracting(Product::getId).containsExactly(productId, otherProductId);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void forEachProductChunk_ShouldSelectOnlyProductsMissingFromCache() {
+
+        Long otherProductId = productRepository.save(Product.build("Other", "Description",
+                new BigDecimal("20.00"), 5L)).getId();
+        entityManagerFactory.getCache().evict(Product.class, otherProductId);
+        statistics.clear();
+
+        List<ProductDto> products = new ArrayList<>();
+        productService.forEachProductChunk(List.of(otherProductId, productId, -1L), products::addAll);
+
+        assertThat(products).extracting(ProductDto::id).containsExactly(otherProductId, productId);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updateProductInfo_ShouldRefreshCachedProduct() {
+
+        productService.getProductById(productId);
+
+        productService.updateProductInfo(productId, new ProductRequest("Renamed", "Description",
+                new BigDecimal("15.00"), 7L));
+        ProductDto productDto = productService.getProductById(productId);
+
+        assertThat(productDto.name()).isEqualTo("Renamed");
+        assertThat(productDto.price()).isEqualByComparingTo("15.00");
+        assertThat(productDto.quantityInStock()).isEqualTo(7L);
+    }
+
+    @Test
+    void softDeleteProductById_ShouldHideCachedProduct() {
+
+        productService.getProductById(productId);
+
+        productService.softDeleteProductById(productId);
+
+        assertThatThrownBy(() -> productService.getProductById(productId))
+                .isInstanceOf(ProductNotFoundException.class);
+        assertThat(productRepository.findAllByIdAndDeletedFalse(List.of(productId))).isEmpty();
+    }
+
+    @Test
+    void updateProductInfo_ShouldEvictSerializedProduct() {
+
+        Cache productJson = cacheManager.getCache(CacheNames.PRODUCT_JSON);
+        productJson.put(productId, new byte[] {1});
+
+        productService.updateProductInfo(productId, new ProductRequest("Renamed", "Description",
+                new BigDecimal("15.00"), 7L));
+
+        assertThat(productJson.get(productId)).isNull();
+    }
+
+    @Test
+    void softDeleteProductById_ShouldEvictSerializedProduct() {
+
+        Cache productJson = cacheManager.getCache(CacheNames.PRODUCT_JSON);
+        productJson.put(productId, new byte[] {1});
+
+        productService.softDeleteProductById(productId);
+
+        assertThat(productJson.get(productId)).isNull();
+    }
+}
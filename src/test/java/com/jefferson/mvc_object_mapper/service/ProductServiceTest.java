@@ -1,11 +1,15 @@
 package com.jefferson.mvc_object_mapper.service;
 
+import com.jefferson.mvc_object_mapper.common.KeysetCursor;
+import com.jefferson.mvc_object_mapper.dto.CursorPage;
 import com.jefferson.mvc_object_mapper.dto.ProductDto;
 import com.jefferson.mvc_object_mapper.dto.ProductRequest;
+import com.jefferson.mvc_object_mapper.exception.InvalidCursorException;
 import com.jefferson.mvc_object_mapper.exception.ProductNotFoundException;
 import com.jefferson.mvc_object_mapper.mapper.ProductMapper;
 import com.jefferson.mvc_object_mapper.model.Product;
 import com.jefferson.mvc_object_mapper.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,13 +17,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -39,10 +46,16 @@ public class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     @BeforeEach
     void initTests() {
 
-        productService = new ProductService(productRepository, productMapper);
+        productService = new ProductService(productRepository, productMapper, eventPublisher, entityManager);
 
         var validatorFactory = new LocalValidatorFactoryBean();
         validatorFactory.afterPropertiesSet();
@@ -117,6 +130,181 @@ public class ProductServiceTest {
         verifyNoInteractions(productMapper);
     }
 
+    @Test
+    void forEachProductChunk_ShouldSplitDistinctIdsIntoBoundedChunks() {
+
+        List<Long> productIds = new ArrayList<>();
+        for(long id = 1; id <= 150; id++) {
+            productIds.add(id);
+        }
+        productIds.add(1L);
+
+        when(productRepository.findAllByIdAndDeletedFalse(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> {
+                Product product = Product.build("Product " + id, "Description", BigDecimal.ONE, 1L);
+                product.setId(id);
+                return product;
+            }).toList();
+        });
+        when(productMapper.toDto(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            return new ProductDto(product.getId(), product.getName(), "Description", BigDecimal.ONE, 1L, null);
+        });
+
+        List<List<ProductDto>> chunks = new ArrayList<>();
+        productService.forEachProductChunk(productIds, chunks::add);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).hasSize(100);
+        assertThat(chunks.get(1)).hasSize(50);
+        verify(productRepository).findAllByIdAndDeletedFalse(productIds.subList(0, 100));
+        verify(productRepository).findAllByIdAndDeletedFalse(productIds.subList(100, 150));
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void forEachProductChunk_ShouldThrowConstraintViolationException_WhenIdIsNull() {
+
+        List<Long> productIds = new ArrayList<>();
+        productIds.add(null);
+
+        assertThatThrownBy(() -> productService.forEachProductChunk(productIds, chunk -> {}))
+                .isInstanceOf(ConstraintViolationException.class)
+                .hasMessageContaining("Product id mustn't be null");
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getProductsSlice_ShouldReturnSliceOfProductDtos_WhenProductsExist() {
+
+        Pageable pageable = PageRequest.of(0, 1, Sort.by("id"));
+
+        Product product = Product.build("Product 1", "Description 1",
+                new BigDecimal("100.00"), 10L);
+        product.setId(1L);
+        ProductDto dto = new ProductDto(1L, "Product 1", "Description 1",
+                new BigDecimal("100.00"), 10L, LocalDateTime.now());
+
+        when(productRepository.findSliceByDeletedFalse(pageable))
+                .thenReturn(new SliceImpl<>(List.of(product), pageable, true));
+        when(productMapper.toDto(product)).thenReturn(dto);
+
+        Slice<ProductDto> result = productService.getProductsSlice(pageable);
+
+        assertThat(result.getContent()).containsExactly(dto);
+        assertThat(result.hasNext()).isTrue();
+
+        verify(productRepository, times(1)).findSliceByDeletedFalse(pageable);
+        verify(productRepository, never()).findAllByDeletedFalse(any());
+    }
+
+    @Test
+    void getProductsSlice_ShouldThrowConstraintViolationException_NullArg() {
+
+        assertThatThrownBy(() -> productService.getProductsSlice(null))
+                .isInstanceOf(ConstraintViolationException.class)
+                .satisfies(exception -> {
+                    var violations = ((ConstraintViolationException) exception).getConstraintViolations();
+                    assertThat(violations).hasSize(1);
+                    assertThat(violations)
+                            .anyMatch(v -> v.getMessage().equals("Pageable arg mustn't be null"));
+                });
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getProductsAfter_ShouldReturnFirstWindowWithNextCursor_WhenNoCursorGiven() {
+
+        Product product1 = Product.build("Apple", "Description 1", new BigDecimal("1.00"), 10L);
+        product1.setId(1L);
+        Product product2 = Product.build("Banana", "Description 2", new BigDecimal("2.00"), 20L);
+        product2.setId(2L);
+
+        ProductDto dto1 = new ProductDto(1L, "Apple", "Description 1",
+                new BigDecimal("1.00"), 10L, LocalDateTime.now());
+        ProductDto dto2 = new ProductDto(2L, "Banana", "Description 2",
+                new BigDecimal("2.00"), 20L, LocalDateTime.now());
+
+        Window<Product> window = Window.from(List.of(product1, product2), ScrollPosition::offset, true);
+
+        when(productRepository.findByDeletedFalse(ScrollPosition.keyset(), Sort.by("name", "id"), Limit.of(2)))
+                .thenReturn(window);
+        when(productMapper.toDto(product1)).thenReturn(dto1);
+        when(productMapper.toDto(product2)).thenReturn(dto2);
+
+        CursorPage<ProductDto> result = productService.getProductsAfter(null, 2, "name");
+
+        assertThat(result.content()).containsExactly(dto1, dto2);
+        assertThat(result.hasNext()).isTrue();
+        assertEquals(new KeysetCursor("name", "Banana", 2L), KeysetCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    void getProductsAfter_ShouldSeekPastCursorKeys_WhenCursorGiven() {
+
+        Product product = Product.build("Cherry", "Description", new BigDecimal("3.50"), 5L);
+        product.setId(3L);
+        ProductDto dto = new ProductDto(3L, "Cherry", "Description",
+                new BigDecimal("3.50"), 5L, LocalDateTime.now());
+
+        String cursor = new KeysetCursor("price", "2.00", 2L).encode();
+        ScrollPosition expectedPosition = ScrollPosition.forward(
+                Map.of("price", new BigDecimal("2.00"), "id", 2L));
+
+        when(productRepository.findByDeletedFalse(expectedPosition, Sort.by("price", "id"), Limit.of(10)))
+                .thenReturn(Window.from(List.of(product), ScrollPosition::offset, false));
+        when(productMapper.toDto(product)).thenReturn(dto);
+
+        //sort argument is ignored once a cursor is given
+        CursorPage<ProductDto> result = productService.getProductsAfter(cursor, 10, "name");
+
+        assertThat(result.content()).containsExactly(dto);
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.nextCursor()).isNull();
+    }
+
+    @Test
+    void getProductsAfter_ShouldThrowInvalidCursorException_WhenSortKeyUnsupported() {
+
+        assertThatThrownBy(() -> productService.getProductsAfter(null, 10, "description"))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessage("Unsupported sort key for cursor paging: description");
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getProductsAfter_ShouldThrowInvalidCursorException_WhenCursorMalformed() {
+
+        String cursor = new KeysetCursor("createdAt", "not a date", 2L).encode();
+
+        assertThatThrownBy(() -> productService.getProductsAfter("%%%", 10, "id"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> productService.getProductsAfter(cursor, 10, "id"))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessage("Invalid cursor value for sort key: createdAt");
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getProductsAfter_ShouldThrowConstraintViolationException_WhenSizeNotPositive() {
+
+        assertThatThrownBy(() -> productService.getProductsAfter(null, 0, "id"))
+                .isInstanceOf(ConstraintViolationException.class)
+                .satisfies(exception -> {
+                    var violations = ((ConstraintViolationException) exception).getConstraintViolations();
+                    assertThat(violations).hasSize(1);
+                    assertThat(violations)
+                            .anyMatch(v -> v.getMessage().equals("Page size must be positive"));
+                });
+
+        verifyNoInteractions(productRepository);
+    }
+
     @Test
     void getProductById_ShouldReturnProductDto_WhenProductExists() {
 
@@ -154,6 +342,30 @@ public class ProductServiceTest {
         verify(productMapper, never()).toDto(any());
     }
 
+    @Test
+    void getProductVersion_ShouldReturnVersionWithoutMapping_WhenProductExists() {
+
+        Product product = new Product(1L, "Test Product", "Description",
+                new BigDecimal("100.00"), 10L, false, LocalDateTime.now(), 3L);
+
+        when(productRepository.findByIdAndDeletedFalse(1L)).thenReturn(Optional.of(product));
+
+        Long version = productService.getProductVersion(1L);
+
+        assertThat(version).isEqualTo(3L);
+        verifyNoInteractions(productMapper);
+    }
+
+    @Test
+    void getProductVersion_ShouldThrowProductNotFoundException_WhenProductNotFound() {
+
+        when(productRepository.findByIdAndDeletedFalse(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> productService.getProductVersion(999L))
+                .isInstanceOf(ProductNotFoundException.class)
+                .hasMessage("Product not found for id: 999");
+    }
+
     @Test
     void getProductById_ShouldThrowConstraintViolationException_WhenIdIsNull() {
         Long nullId = null;
@@ -379,6 +591,7 @@ public class ProductServiceTest {
         verify(productRepository, times(1)).findByIdAndDeletedFalse(productId);
         verify(productRepository, times(1)).save(existingProduct);
         verify(productMapper, times(1)).toDto(updatedProduct);
+        verify(eventPublisher, times(1)).publishEvent(new ProductStockChangedEvent(productId));
 
         assertThat(existingProduct.getName()).isEqualTo("Updated Product");
         assertThat(existingProduct.getDescription()).isEqualTo("Updated Description");